@@ -0,0 +1,125 @@
+package rushhour;
+
+import java.util.PriorityQueue;
+
+/**
+ * A* search ordered by moves so far + a heuristic lower bound
+ * returns a shortest solution as long as the heuristic is admissible
+ * (never overestimates); the heuristic is only evaluated for boards
+ * pushed onto the open list, and boards are reopened when a shorter path
+ * to them is found, so the heuristic does not need to be consistent
+ * moves are counted in the heuristic's MoveMetric
+ */
+public class AStarStrategy implements SearchStrategy {
+    private final Heuristic heuristic;
+
+    /**
+     * entry in the open list
+     * ties on f are broken toward deeper boards, which reach the goal sooner
+     */
+    private static class Entry implements Comparable<Entry> {
+        final Board board;
+        final int g;    // moves from start
+        final int f;    // g + heuristic estimate
+
+        Entry(Board board, int g, int f) {
+            this.board = board;
+            this.g = g;
+            this.f = f;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (f != other.f)
+                return Integer.compare(f, other.f);
+            return Integer.compare(other.g, g);
+        }
+    }
+
+    /**
+     * constructor
+     * @param heuristic: admissible lower bound on moves left, also picks the move metric
+     */
+    public AStarStrategy(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public Heuristic getHeuristic() { return heuristic; }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        int[] cars = relevance.getMovableCars();
+        PriorityQueue<Entry> open = new PriorityQueue<Entry>();
+        LongIntMap bestCost = new LongIntMap();     // fewest moves found to each state
+        SearchTree tree = new SearchTree();
+        Board first = new Board(start);
+        first.setPathId(tree.addRoot());
+        open.add(new Entry(first, 0, heuristic.estimate(first)));
+        bestCost.put(first.getState(), 0);
+        stats.recordReached(0);
+        MoveMetric metric = heuristic.getMetric();
+
+        while (!open.isEmpty()) {
+            Entry e = open.poll();
+            // skip entries replaced by a shorter path
+            if (e.g > bestCost.get(e.board.getState(), Integer.MAX_VALUE))
+                continue;
+            if (e.board.isSolved()) {
+                stats.stop();
+                return new SearchResult(e.board, tree.getPath(e.board.getPathId()), stats, getName());
+            }
+            SearchStatus over = budget.check(stats, bestCost.getMemoryBytes());
+            if (over != null) {
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(), over);
+            }
+            stats.recordExpanded();
+            long expandStart = stats.clock();
+
+            for (int c : cars) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    int limit = metric.maxDistance(e.board, c, dir);
+                    for (int d = 1; d <= limit; d++) {
+                        stats.recordGenerated();
+                        // only copy the board once the successor is known to be improved
+                        long hashStart = stats.clock();
+                        long nextState = e.board.getStateAfterMove(c, dir, d);
+                        int g = e.g + 1;
+                        int oldCost = bestCost.get(nextState, Integer.MAX_VALUE);
+                        if (g < oldCost)
+                            bestCost.put(nextState, g);
+                        stats.addHashingTime(hashStart);
+                        if (g >= oldCost) {
+                            stats.recordDuplicate();
+                        } else {
+                            if (oldCost == Integer.MAX_VALUE)
+                                stats.recordReached(g);
+                            int move = Move.encode(c, dir, d);
+                            Board next = new Board(e.board).attemptMove(c, dir, d);
+                            next.setPathId(tree.add(e.board.getPathId(), move));
+                            int h = heuristic.estimateAfterMove(e.board, e.f - e.g, next, move);
+                            open.add(new Entry(next, g, g + h));
+                        }
+                    }
+                }
+            }
+            stats.addExpansionTime(expandStart);
+            stats.updatePeaks(open.size(), bestCost.size());
+        }
+        stats.stop();
+        return new SearchResult(null, null, stats, getName());
+    }
+
+    @Override
+    public MoveMetric getMetric() { return heuristic.getMetric(); }
+
+    @Override
+    public String getName() { return "astar-" + heuristic.getName(); }
+}
@@ -0,0 +1,298 @@
+package rushhour;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * solves many puzzle files in one JVM on a fixed pool of worker threads
+ * each result is written to one shared output as soon as it is ready,
+ * in the order puzzles finish
+ *
+ * at most maxPending puzzles are queued or running at once; reading more
+ * puzzles waits until one finishes, so a huge manifest never piles up in
+ * memory. a puzzle that fails to parse or throws is reported as failed
+ * and does not stop the batch. w/ a SearchBudget, a puzzle that runs out
+ * of budget is reported and its worker moves on
+ *
+ * output, per puzzle:
+ *   == <puzzle file> solved <move count>
+ *   <moves, one per line as in Board.printMovesToFile>
+ * or
+ *   == <puzzle file> unsolved
+ *   == <puzzle file> gave up <TIME_LIMIT, NODE_LIMIT or MEMORY_LIMIT>
+ *   == <puzzle file> failed <reason>
+ */
+public class BatchSolver {
+    private final int workers;
+    private final int maxPending;
+    private final SearchStrategy strategy;
+    private final SearchBudget budget;
+    private final AtomicInteger solved = new AtomicInteger();
+    private final AtomicInteger unsolved = new AtomicInteger();
+    private final AtomicInteger gaveUp = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * constructor using one worker per core and BFS
+     */
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors(), new BfsStrategy());
+    }
+
+    /**
+     * constructor w/ up to 4 puzzles pending per worker
+     * @param workers: threads solving puzzles
+     * @param strategy: shared by all workers
+     */
+    public BatchSolver(int workers, SearchStrategy strategy) {
+        this(workers, 4 * workers, strategy);
+    }
+
+    /**
+     * constructor
+     * @param workers: threads solving puzzles
+     * @param maxPending: puzzles queued or running before reading waits
+     * @param strategy: shared by all workers
+     */
+    public BatchSolver(int workers, int maxPending, SearchStrategy strategy) {
+        this(workers, maxPending, strategy, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * constructor
+     * @param workers: threads solving puzzles
+     * @param maxPending: puzzles queued or running before reading waits
+     * @param strategy: shared by all workers
+     * @param budget: limits on each puzzle's search
+     */
+    public BatchSolver(int workers, int maxPending, SearchStrategy strategy, SearchBudget budget) {
+        if (workers < 1 || maxPending < workers)
+            throw new IllegalArgumentException("need workers >= 1 and maxPending >= workers");
+        this.workers = workers;
+        this.maxPending = maxPending;
+        this.strategy = strategy;
+        this.budget = budget;
+    }
+
+    // getters
+    public int getSolved() { return solved.get(); }
+    public int getUnsolved() { return unsolved.get(); }
+    public int getGaveUp() { return gaveUp.get(); }
+    public int getFailed() { return failed.get(); }
+
+    /**
+     * solve every puzzle in a directory (*.txt, by name) or listed in a
+     * manifest (one path per line, relative to the manifest, # for comments)
+     * @param source: directory or manifest file
+     * @param sink: where results are written
+     */
+    public void solveSource(String source, PrintWriter sink) throws IOException, InterruptedException {
+        Path path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                Iterator<String> puzzles = files
+                        .filter(p -> p.getFileName().toString().endsWith(".txt"))
+                        .sorted()
+                        .map(Path::toString)
+                        .iterator();
+                solveAll(puzzles, sink);
+            }
+        } else {
+            Path base = path.toAbsolutePath().getParent();
+            try (Stream<String> lines = Files.lines(path)) {
+                Iterator<String> puzzles = lines
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .map(line -> base.resolve(line).toString())
+                        .iterator();
+                solveAll(puzzles, sink);
+            }
+        }
+    }
+
+    /**
+     * solve puzzle files, writing each result as it finishes
+     * returns once every puzzle is done
+     * @param puzzles: paths of puzzle files, read lazily
+     * @param sink: where results are written
+     */
+    public void solveAll(Iterator<String> puzzles, PrintWriter sink) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Semaphore pending = new Semaphore(maxPending);
+        try {
+            while (puzzles.hasNext()) {
+                String puzzle = puzzles.next();
+                submit(pool, pending, sink, () -> solveOne(puzzle));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * solve every puzzle in one bulk file, one puzzle per line, see PuzzleFileReader
+     * puzzles are named <file>:<line> in the output; a malformed line is
+     * reported as failed w/ its line number and the rest of the file goes on
+     * @param filename: bulk puzzle file
+     * @param sink: where results are written
+     */
+    public void solveBulk(String filename, PrintWriter sink) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Semaphore pending = new Semaphore(maxPending);
+        try (PuzzleFileReader reader = new PuzzleFileReader(filename)) {
+            while (reader.hasNext()) {
+                try {
+                    Board board = reader.next();
+                    String puzzle = filename + ":" + reader.getLineNumber();
+                    submit(pool, pending, sink, () -> solveBoard(puzzle, board));
+                } catch (PuzzleFormatException e) {
+                    failed.incrementAndGet();
+                    synchronized (sink) {
+                        sink.print("== " + filename + ":" + e.getLineNumber() + " failed " + e.getMessage() + "\n");
+                        sink.flush();
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * run one solve on the pool once there is room, writing its record when done
+     * @param task: returns the output record, never throws
+     */
+    private void submit(ExecutorService pool, Semaphore pending, PrintWriter sink, Supplier<String> task)
+            throws InterruptedException {
+        pending.acquire();      // wait for room before taking more work
+        try {
+            pool.execute(() -> {
+                try {
+                    String record = task.get();
+                    synchronized (sink) {
+                        sink.print(record);
+                        sink.flush();
+                    }
+                } finally {
+                    pending.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    /**
+     * solve one puzzle file, never throws
+     * @return output record for it
+     */
+    private String solveOne(String puzzle) {
+        Board board;
+        try {
+            board = Board.parse(Files.readString(Paths.get(puzzle)));
+        } catch (IllegalArgumentException e) {
+            // bad grid, geometry or car, message says which
+            failed.incrementAndGet();
+            return "== " + puzzle + " failed " + e.getMessage() + "\n";
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            failed.incrementAndGet();
+            return "== " + puzzle + " failed " + e + "\n";
+        }
+        return solveBoard(puzzle, board);
+    }
+
+    /**
+     * solve one parsed board, never throws
+     * @param puzzle: name used in the output
+     * @return output record for it
+     */
+    private String solveBoard(String puzzle, Board board) {
+        try {
+            if (board.getLayout().getXIndex() < 0) {
+                failed.incrementAndGet();
+                return "== " + puzzle + " failed no X car\n";
+            }
+            SearchResult result = Solver.search(puzzle, board, strategy, budget);
+            if (result.getStatus().isBudgetExceeded()) {
+                gaveUp.incrementAndGet();
+                return "== " + puzzle + " gave up " + result.getStatus() + "\n";
+            }
+            if (!result.isSolved()) {
+                unsolved.incrementAndGet();
+                return "== " + puzzle + " unsolved\n";
+            }
+
+            StringBuilder record = new StringBuilder();
+            record.append("== ").append(puzzle).append(" solved ").append(result.getMoveCount()).append('\n');
+            for (int move : result.getMoves())
+                record.append(Move.format(board.getLayout(), move)).append('\n');
+            solved.incrementAndGet();
+            return record.toString();
+        } catch (RuntimeException | OutOfMemoryError e) {
+            failed.incrementAndGet();
+            return "== " + puzzle + " failed " + e + "\n";
+        }
+    }
+
+    /**
+     * command line entry point
+     * usage: BatchSolver [-bulk] [-timeout ms] [-max-expanded n] [-max-memory MB]
+     *                    <directory, manifest or bulk file> <output file> [workers]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean bulk = false;
+        long timeout = 0;
+        long maxExpanded = 0;
+        long maxMemory = 0;
+        int at = 0;
+        while (at < args.length && args[at].startsWith("-")) {
+            String flag = args[at++];
+            if (flag.equals("-bulk"))
+                bulk = true;
+            else if (flag.equals("-timeout") && at < args.length)
+                timeout = Long.parseLong(args[at++]);
+            else if (flag.equals("-max-expanded") && at < args.length)
+                maxExpanded = Long.parseLong(args[at++]);
+            else if (flag.equals("-max-memory") && at < args.length)
+                maxMemory = Long.parseLong(args[at++]) << 20;
+            else {
+                at = args.length;   // show usage
+                break;
+            }
+        }
+        args = java.util.Arrays.copyOfRange(args, at, args.length);
+        if (args.length < 2) {
+            System.out.println("usage: BatchSolver [-bulk] [-timeout ms] [-max-expanded n] [-max-memory MB]"
+                    + " <directory, manifest or bulk file> <output file> [workers]");
+            return;
+        }
+        int workers = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        SearchBudget budget = new SearchBudget(timeout, maxExpanded, maxMemory);
+        BatchSolver batch = new BatchSolver(workers, 4 * workers, new BfsStrategy(), budget);
+        try (PrintWriter sink = new PrintWriter(new BufferedWriter(new FileWriter(new File(args[1]))))) {
+            if (bulk)
+                batch.solveBulk(args[0], sink);
+            else
+                batch.solveSource(args[0], sink);
+        }
+        System.out.println("solved " + batch.getSolved() + ", unsolved " + batch.getUnsolved()
+                + ", gave up " + batch.getGaveUp() + ", failed " + batch.getFailed());
+    }
+}
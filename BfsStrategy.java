@@ -0,0 +1,105 @@
+package rushhour;
+
+/**
+ * breadth first search
+ * every move costs the same, so the first solved board dequeued
+ * is reached w/ the fewest moves in the chosen MoveMetric
+ */
+public class BfsStrategy implements SearchStrategy {
+    private final MoveMetric metric;
+
+    /**
+     * constructor for single step moves
+     */
+    public BfsStrategy() {
+        this(MoveMetric.STEP);
+    }
+
+    /**
+     * constructor
+     * @param metric: what counts as one move
+     */
+    public BfsStrategy(MoveMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        int[] cars = relevance.getMovableCars();
+        // boards are queued in the order they are added to the tree,
+        // so the n-th state dequeued is tree node n
+        StateQueue boardQueue = new StateQueue();
+        LongHashSet seenBoards = new LongHashSet();
+        SearchTree tree = new SearchTree();
+        Board current = new Board(start);  // scratch board, reloaded for each state
+        tree.addRoot();
+        boardQueue.addLast(start.getState());
+        seenBoards.add(start.getState());
+        stats.recordReached(0);
+
+        int depth = 0;              // depth of boards now being dequeued
+        int layerLeft = 1;          // boards of this depth still in the queue
+        int nextLayer = 0;          // boards of the next depth queued so far
+
+        while (!boardQueue.isEmpty()) {
+            if (layerLeft == 0) {
+                depth++;
+                layerLeft = nextLayer;
+                nextLayer = 0;
+            }
+            current.loadState(boardQueue.removeFirst());
+            current.setPathId((int) boardQueue.getRemoved() - 1);
+            layerLeft--;
+            if (current.isSolved()) {
+                stats.stop();
+                return new SearchResult(current, tree.getPath(current.getPathId()), stats, getName());
+            }
+            SearchStatus over = budget.check(stats, seenBoards.getMemoryBytes());
+            if (over != null) {
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(), over);
+            }
+            stats.recordExpanded();
+            long expandStart = stats.clock();
+
+            for (int c : cars) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    int limit = metric.maxDistance(current, c, dir);
+                    for (int d = 1; d <= limit; d++) {
+                        stats.recordGenerated();
+                        long hashStart = stats.clock();
+                        long next = current.getStateAfterMove(c, dir, d);
+                        boolean isNew = seenBoards.add(next);
+                        stats.addHashingTime(hashStart);
+
+                        if (isNew) {
+                            tree.add(current.getPathId(), Move.encode(c, dir, d));
+                            boardQueue.addLast(next);
+                            stats.recordReached(depth + 1);
+                            nextLayer++;
+                        } else {
+                            stats.recordDuplicate();
+                        }
+                    }
+                }
+            }
+            stats.addExpansionTime(expandStart);
+            stats.updatePeaks(boardQueue.size(), seenBoards.size());
+        }
+        stats.stop();
+        return new SearchResult(null, null, stats, getName());
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "bfs" + metric.suffix(); }
+}
@@ -0,0 +1,285 @@
+package rushhour;
+
+import java.util.Arrays;
+
+/**
+ * breadth first search from both ends at once
+ *
+ * the forward side starts from the start board, the backward side from
+ * every solved board the start's cars could be in: xCar at the exit, the
+ * other cars anywhere that keeps the order of cars sharing a lane. moves
+ * can be undone, so the backward side is an ordinary BFS too. each round
+ * expands a whole layer of whichever side has the smaller frontier; the
+ * first layer that reaches a state the other side has seen gives the
+ * shortest path through any of those meeting states, so the shortest one
+ * is a shortest solution. each side covers about half the depth, which
+ * on deep puzzles is far fewer boards than one BFS all the way
+ *
+ * both visited sets map a state to the move that first reached it, so
+ * each half of the path is rebuilt by undoing moves, like ParallelBfsStrategy
+ */
+public class BidirectionalBfsStrategy implements SearchStrategy {
+    private final MoveMetric metric;
+
+    /**
+     * constructor for single step moves
+     */
+    public BidirectionalBfsStrategy() {
+        this(MoveMetric.STEP);
+    }
+
+    /**
+     * constructor
+     * @param metric: what counts as one move
+     */
+    public BidirectionalBfsStrategy(MoveMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        if (start.isSolved()) {
+            stats.recordReached(0);
+            stats.stop();
+            return new SearchResult(new Board(start), new int[0], stats, getName());
+        }
+        int[] cars = relevance.getMovableCars();
+        Board board = new Board(start);     // scratch board, reloaded for each state
+
+        LongIntMap forward = new LongIntMap();
+        forward.put(start.getState(), Move.NONE);
+        long[] forwardLayer = { start.getState() };
+        int forwardDepth = 0;
+        stats.recordReached(0);
+
+        SearchStatus[] listing = { null };
+        long[] backwardLayer = goalStates(start, cars, relevance, budget, stats, listing);
+        if (listing[0] != null) {
+            // goal states may be missing, so the search below could wrongly find none
+            stats.stop();
+            return SearchResult.overBudget(stats, getName(), listing[0]);
+        }
+        LongIntMap backward = new LongIntMap(backwardLayer.length * 4);
+        for (long goal : backwardLayer)
+            backward.put(goal, Move.NONE);
+        int backwardDepth = 0;
+
+        long meet = -1;
+        while (forwardLayer.length > 0 && backwardLayer.length > 0) {
+            boolean isForward = forwardLayer.length <= backwardLayer.length;
+            LongIntMap own = isForward ? forward : backward;
+            LongIntMap other = isForward ? backward : forward;
+            long[] layer = isForward ? forwardLayer : backwardLayer;
+            long[] next = new long[64];
+            int nextSize = 0;
+            int best = Integer.MAX_VALUE;
+
+            long expandStart = stats.clock();
+            for (long state : layer) {
+                SearchStatus over = budget.check(stats, forward.getMemoryBytes() + backward.getMemoryBytes());
+                if (over != null) {
+                    stats.stop();
+                    return SearchResult.overBudget(stats, getName(), over);
+                }
+                board.loadState(state);
+                stats.recordExpanded();
+                for (int c : cars) {
+                    for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                        int limit = metric.maxDistance(board, c, dir);
+                        for (int d = 1; d <= limit; d++) {
+                            stats.recordGenerated();
+                            long s = board.getStateAfterMove(c, dir, d);
+                            if (own.containsKey(s)) {
+                                stats.recordDuplicate();
+                                continue;
+                            }
+                            own.put(s, Move.encode(c, dir, d));
+                            if (nextSize == next.length)
+                                next = Arrays.copyOf(next, nextSize * 2);
+                            next[nextSize++] = s;
+                            if (other.containsKey(s)) {
+                                // keep expanding the layer, a later meeting may be shorter
+                                int length = pathTo(other, s).length;
+                                if (length < best) {
+                                    best = length;
+                                    meet = s;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            stats.addExpansionTime(expandStart);
+
+            next = Arrays.copyOf(next, nextSize);
+            if (isForward) {
+                forwardLayer = next;
+                forwardDepth++;
+                if (nextSize > 0)
+                    stats.recordLayer(forwardDepth, nextSize);
+            } else {
+                backwardLayer = next;
+                backwardDepth++;
+            }
+            stats.updatePeaks(forwardLayer.length + backwardLayer.length, forward.size() + backward.size());
+            if (meet != -1)
+                break;
+        }
+
+        stats.stop();
+        if (meet == -1)
+            return new SearchResult(null, null, stats, getName());
+
+        // start to meet from the forward side, then meet to goal by undoing backward moves
+        int[] head = pathTo(forward, meet);
+        int[] tail = pathTo(backward, meet);
+        int[] moves = Arrays.copyOf(head, head.length + tail.length);
+        for (int i = 0; i < tail.length; i++) {
+            int m = tail[tail.length - 1 - i];
+            moves[head.length + i] = Move.encode(Move.getCar(m), -Move.getDir(m), Move.getDistance(m));
+        }
+
+        Board finalBoard = new Board(start);
+        for (int m : moves)
+            finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+        return new SearchResult(finalBoard, moves, stats, getName());
+    }
+
+    /**
+     * moves that first reached a state, from its side's roots
+     * @param seen: one side's visited set, state to the move that reached it
+     * @return packed moves, in the order they were made
+     */
+    private static int[] pathTo(LongIntMap seen, long state) {
+        int[] moves = new int[16];
+        int count = 0;
+        int move;
+        while ((move = seen.get(state, Move.NONE)) != Move.NONE) {
+            if (count == moves.length)
+                moves = Arrays.copyOf(moves, count * 2);
+            moves[count++] = move;
+            state = CarLayout.applyMove(state, Move.getCar(move), -Move.getDir(move) * Move.getDistance(move));
+        }
+        moves = Arrays.copyOf(moves, count);
+        for (int i = 0; i < count / 2; i++) {
+            int tmp = moves[i];
+            moves[i] = moves[count - 1 - i];
+            moves[count - 1 - i] = tmp;
+        }
+        return moves;
+    }
+
+    /**
+     * every solved state the start's cars could be in
+     * xCar is at the exit, cars that are not searched stay where they are,
+     * the rest take any free position in their span that keeps the order
+     * of each lane
+     * @param start
+     * @param cars: cars the search moves
+     * @param relevance: spans of the cars
+     * @param budget: checked as goals are listed, their array counting as memory;
+     *     on sparse boards there can be more goals than the search will ever expand
+     * @param stats: stats of the search
+     * @param over: set to the limit that stopped the listing, if one did
+     * @return packed states, only some of them if over was set
+     */
+    private static long[] goalStates(Board start, int[] cars, Relevance relevance, SearchBudget budget,
+            SearchStats stats, SearchStatus[] over) {
+        CarLayout layout = start.getLayout();
+        int x = layout.getXIndex();
+        byte[] positions = new byte[layout.getNumCars()];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = (byte) start.getPosition(i);
+        positions[x] = (byte) layout.getGoalPosition();
+
+        // cars that are placed, the rest are fixed in place
+        int[] placed = new int[cars.length];
+        int count = 0;
+        long fixed = layout.getGeometry().getWalls();
+        boolean[] isPlaced = new boolean[positions.length];
+        for (int c : cars) {
+            if (c != x) {
+                placed[count++] = c;
+                isPlaced[c] = true;
+            }
+        }
+        for (int i = 0; i < positions.length; i++) {
+            if (!isPlaced[i])
+                fixed |= layout.getCarMask(i, positions[i]);
+        }
+
+        long[][] out = { new long[64] };
+        int[] size = { 0 };
+        over[0] = budget.check(stats, 0);
+        if (over[0] == null)
+            placeCars(start, layout, relevance, budget, stats, over, Arrays.copyOf(placed, count), 0, positions,
+                    fixed, out, size);
+        return Arrays.copyOf(out[0], size[0]);
+    }
+
+    /**
+     * place cars[k..] in every free position that keeps lane order, adding
+     * each complete placement to out, until the budget runs out
+     */
+    private static void placeCars(Board start, CarLayout layout, Relevance relevance, SearchBudget budget,
+            SearchStats stats, SearchStatus[] over, int[] cars, int k, byte[] positions, long occupied,
+            long[][] out, int[] size) {
+        if (over[0] != null)
+            return;
+        if (k == cars.length) {
+            if ((size[0] & 1023) == 0) {
+                over[0] = budget.check(stats, 8L * out[0].length);
+                if (over[0] != null)
+                    return;
+            }
+            if (size[0] == out[0].length)
+                out[0] = Arrays.copyOf(out[0], size[0] * 2);
+            out[0][size[0]++] = CarLayout.pack(positions);
+            return;
+        }
+        int c = cars[k];
+        for (int p = 0; p + layout.getLength(c) <= layout.getLaneLength(c); p++) {
+            long mask = layout.getCarMask(c, p);
+            if ((mask & occupied) != 0 || (mask & ~relevance.getSpan(c)) != 0
+                    || !keepsLaneOrder(start, layout, cars, k, positions, c, p))
+                continue;
+            positions[c] = (byte) p;
+            placeCars(start, layout, relevance, budget, stats, over, cars, k + 1, positions, occupied | mask,
+                    out, size);
+        }
+        positions[c] = (byte) start.getPosition(c);
+    }
+
+    /**
+     * check that car c at p keeps its side of every car in its lane that is
+     * already placed or fixed; cars in a lane can never pass each other
+     */
+    private static boolean keepsLaneOrder(Board start, CarLayout layout, int[] cars, int k, byte[] positions,
+            int c, int p) {
+        for (int j = 0; j < positions.length; j++) {
+            if (j == c || layout.getDir(j) != layout.getDir(c) || layout.getLane(j) != layout.getLane(c))
+                continue;
+            boolean pending = false;
+            for (int i = k + 1; i < cars.length; i++)
+                pending |= cars[i] == j;
+            if (pending)
+                continue;
+            if ((start.getPosition(j) < start.getPosition(c)) != (positions[j] < p))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "bidirectional-bfs" + metric.suffix(); }
+}
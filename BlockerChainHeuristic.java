@@ -0,0 +1,111 @@
+package rushhour;
+
+/**
+ * blockers of blockers lower bound
+ * counts squares xCar still has to travel, then for each car blocking
+ * xCar the fewest squares it must slide to leave xCar's row, then every
+ * other car that sits in the way of all the directions a blocker
+ * could leave in
+ *
+ * admissible: the three terms count moves of different cars
+ * (xCar, blockers, and cars that are neither), and each car in the
+ * last term is counted once even if it holds up several blockers
+ *
+ * in the slide metric any distance is one move, so xCar counts 1 while
+ * it is not at the exit and each blocker counts 1
+ */
+public class BlockerChainHeuristic implements Heuristic {
+    private final MoveMetric metric;
+
+    /**
+     * constructor for the single step metric
+     */
+    public BlockerChainHeuristic() {
+        this(MoveMetric.STEP);
+    }
+
+    /**
+     * constructor
+     * @param metric: metric the estimate is a lower bound in
+     */
+    public BlockerChainHeuristic(MoveMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public int estimate(Board board) {
+        CarLayout layout = board.getLayout();
+        int x = layout.getXIndex();
+        int xPos = board.getPosition(x);
+        int xRow = layout.getLane(x);
+        long path = layout.getExitPath(xPos);
+        int cost = Math.abs(layout.getGoalPosition() - xPos);
+        if (metric == MoveMetric.SLIDE)
+            cost = Math.min(cost, 1);
+
+        // cars in xCar's way, as a bitset of car indices
+        long blockers = 0;
+        for (int c = 0; c < board.getNumCars(); c++) {
+            if (c != x && (layout.getCarMask(c, board.getPosition(c)) & path) != 0)
+                blockers |= 1L << c;
+        }
+
+        long secondLevel = 0;     // cars holding up a blocker, as a bitset
+        for (int b = 0; b < board.getNumCars(); b++) {
+            if ((blockers & (1L << b)) == 0)
+                continue;
+            if (layout.getDir(b) == Car.HORI) {
+                cost++;     // stuck in xCar's row, still needs at least one move
+                continue;
+            }
+
+            int p = board.getPosition(b);
+            int len = layout.getLength(b);
+            int upPos = xRow - len;         // top of b once it is just above xCar's row
+            int downPos = xRow + 1;         // top of b once it is just below xCar's row
+            boolean canUp = upPos >= 0;
+            boolean canDown = downPos + len <= layout.getLaneLength(b);
+            if (!canUp && !canDown) {
+                cost++;
+                continue;
+            }
+
+            int steps = Integer.MAX_VALUE;
+            if (canUp)
+                steps = p - upPos;
+            if (canDown)
+                steps = Math.min(steps, downPos - p);
+            cost += (metric == MoveMetric.STEP) ? steps : 1;
+
+            // a car must move if it is in the way of every direction b can leave in
+            long upWay = canUp ? sweptCells(layout, b, upPos, p) : 0;
+            long downWay = canDown ? sweptCells(layout, b, p + len, downPos + len) : 0;
+            for (int c = 0; c < board.getNumCars(); c++) {
+                if (c == x || (blockers & (1L << c)) != 0)
+                    continue;
+                long mask = layout.getCarMask(c, board.getPosition(c));
+                boolean inUp = !canUp || (mask & upWay) != 0;
+                boolean inDown = !canDown || (mask & downWay) != 0;
+                if (inUp && inDown)
+                    secondLevel |= 1L << c;
+            }
+        }
+        return cost + Long.bitCount(secondLevel);
+    }
+
+    /**
+     * cells of car b's column from row first up to (not including) row last
+     */
+    private static long sweptCells(CarLayout layout, int b, int first, int last) {
+        long cells = 0;
+        for (int row = first; row < last; row++)
+            cells |= layout.getGeometry().cellBit(row, layout.getLane(b));
+        return cells;
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "blocker-chain" + metric.suffix(); }
+}
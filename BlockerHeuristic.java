@@ -0,0 +1,75 @@
+package rushhour;
+
+/**
+ * squares xCar still has to travel + cars standing in its way
+ * admissible: each square is one move of xCar, and each blocking
+ * car has to move at least once, w/ no move counted twice
+ *
+ * in the slide metric xCar can cover any free distance in one move,
+ * so it only counts 1 while xCar is not at the exit
+ */
+public class BlockerHeuristic implements Heuristic {
+    private final MoveMetric metric;
+
+    /**
+     * constructor for the single step metric
+     */
+    public BlockerHeuristic() {
+        this(MoveMetric.STEP);
+    }
+
+    /**
+     * constructor
+     * @param metric: metric the estimate is a lower bound in
+     */
+    public BlockerHeuristic(MoveMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public int estimate(Board board) {
+        CarLayout layout = board.getLayout();
+        int x = layout.getXIndex();
+        int xPos = board.getPosition(x);
+        long path = layout.getExitPath(xPos);
+        int cost = xCost(layout, xPos);
+
+        for (int c = 0; c < board.getNumCars(); c++) {
+            if (c != x && (layout.getCarMask(c, board.getPosition(c)) & path) != 0)
+                cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * moves xCar still needs once nothing is in its way
+     */
+    private int xCost(CarLayout layout, int xPos) {
+        int squares = Math.abs(layout.getGoalPosition() - xPos);
+        return (metric == MoveMetric.STEP) ? squares : Math.min(squares, 1);
+    }
+
+    /**
+     * O(1) update: xCar moving into empty cells changes only its own
+     * distance, any other car changes only whether it is a blocker
+     */
+    @Override
+    public int estimateAfterMove(Board parent, int parentEstimate, Board child, int move) {
+        CarLayout layout = parent.getLayout();
+        int x = layout.getXIndex();
+        int index = Move.getCar(move);
+        if (index == x)
+            return parentEstimate - xCost(layout, parent.getPosition(x)) + xCost(layout, child.getPosition(x));
+
+        long path = layout.getExitPath(parent.getPosition(x));
+        boolean wasBlocking = (layout.getCarMask(index, parent.getPosition(index)) & path) != 0;
+        boolean isBlocking = (layout.getCarMask(index, child.getPosition(index)) & path) != 0;
+        return parentEstimate + (isBlocking ? 1 : 0) - (wasBlocking ? 1 : 0);
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "blockers" + metric.suffix(); }
+}
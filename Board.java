@@ -4,240 +4,600 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 public class Board {
-    private char[][] charBoard;
-    private ArrayList<Car> listOfCars;
-    private ArrayList<Character> listOfCarNames;
-    private MoveNode lastMoveNode;
-    private double heurCost;
-    private int hashNum;
+    private CarLayout layout;       // cars shared by every state of this puzzle
+    private byte[] positions;       // top/left of each car along its lane
+    private long occupied;          // bitmask of covered cells
+    private long state;             // positions packed by CarLayout.pack()
+    private int pathId;             // node of this board in its search's SearchTree, -1 if none
+    private double heurCost;        // NaN until asked for by getHeurCost()
+    private long zobristKey;        // xor of CarLayout zobrist values of every car's position
 
     // intended move directions
     public static final int BACKWARD = -1;
     public static final int FORWARD = 1;
 
-    // side length of board
+    // side length of a standard board, see Geometry for any other
     public static final int SIZE = 6;
 
+    // cell of a wall in board text
+    public static final char WALL = '#';
+
     /**
      * default constructor w/ path to file
      * @param filename
      */
     public Board(String filename) {
-        lastMoveNode = null;
-        listOfCars = new ArrayList<Car>();
-        listOfCarNames = new ArrayList<Character>();
+        ArrayList<Car> listOfCars = new ArrayList<Car>();
+        Geometry geometry = Geometry.STANDARD;
         try {
             /**
              * read through file
              */
             File boardFile = new File(filename);
             Scanner boardScan = new Scanner(boardFile);
-            charBoard = new char[SIZE][SIZE];
-
-            for (int i = 0; i < SIZE; i++) {
-                /* if under 6 lines, NoSuchElementException */
-                String line = boardScan.nextLine();
-                for (int j = 0; j < SIZE; j++) {
-                    /* if under length 6, IndexOutOfBoundsException */
-                    charBoard[i][j] = line.charAt(j);
-                    // take names of all cars
-                    if (line.charAt(j) != '.' && !(listOfCarNames.contains(line.charAt(j)))) {
-                        listOfCarNames.add(line.charAt(j));
-                    }
-                }
-            }
-
-            /**
-             * find and create new cars
-             * iterate through names found
-             */
-            for (char ch : listOfCarNames) {
-                int carLen = 0;
-                boolean topFound = false;    // checks if first part of car is found
-                int findX = 0;
-                int findY = 0;
-                int findDir = 0;
-
-                // iterate through the board
-                for (int i = 0; i < SIZE; i++) {
-                    for (int j = 0; j < SIZE; j++) {
-                        // if char on board matches with car name ch
-                        if (charBoard[i][j] == ch) {
-                            carLen++;
-                            // if this is first instance of car part
-                            if (!topFound) {
-                                findX = j;
-                                findY = i;
-                                topFound = true;
-                            }
-
-                            // establish direction using 2nd part of car
-                            if (carLen >= 2 && j == findX) {
-                                findDir = Car.VERT;
-                            } else if (carLen >= 2 && i == findY) {
-                                findDir = Car.HORI;
-                            }
-                        }
-                    }
-                }
-                // car was never found
-                if (!topFound || carLen == 0)
-                    throw new Exception("could not find car");
-
-                // make new Car with newly-found parameters
-                Car foundCar = new Car(ch, findX, findY, carLen, findDir);
-                if (listOfCars.contains(foundCar))     // duplicate car check
-                    throw new IllegalArgumentException("duplicate car found");
-                else
-                    listOfCars.add(foundCar);
-            }
+            ArrayList<String> lines = new ArrayList<String>();
+            while (boardScan.hasNextLine())
+                lines.add(boardScan.nextLine());
             boardScan.close();
+
+            char[][] charBoard = readGrid(lines);
+            geometry = geometryOf(charBoard, readExit(lines, charBoard.length));
+            listOfCars = findCars(charBoard, geometry);
         } catch (FileNotFoundException e) {
             System.out.println("file error");
-        } catch (NoSuchElementException e) {
-            // not enough lines from scanner
-            System.out.println("invalid board: not long enough");
-        } catch (IndexOutOfBoundsException e) {
-            // lines not long enough to scan chars
-            System.out.println("invalid board: not wide enough");
         } catch (IllegalArgumentException e) {
-            System.out.println("car scanning error");
+            // bad grid, geometry or car, message says which
+            System.out.println(e.getMessage());
         } catch (Exception e) {
             System.out.println("board scanning error");
         }
 
-        // set heuristic cost
-        heurCost = computeCost();
-        // hash board of chars
-        hashNum = java.util.Arrays.deepHashCode(charBoard);
+        initFromCars(listOfCars, geometry);
+    }
+
+    /**
+     * constructor from a grid of cells, '.' for empty and WALL for a wall,
+     * w/ the exit on the right
+     * unlike the file constructor, a bad board throws instead of printing
+     * @param charBoard: rectangular grid, not kept
+     * @throws IllegalArgumentException if the grid is not a valid board
+     */
+    public Board(char[][] charBoard) {
+        this(charBoard, FORWARD);
+    }
+
+    /**
+     * constructor from a grid of cells, '.' for empty and WALL for a wall
+     * @param charBoard: rectangular grid, not kept
+     * @param exitDir: FORWARD to leave by the right edge of xCar's row, BACKWARD by the left
+     * @throws IllegalArgumentException if the grid is not a valid board
+     */
+    public Board(char[][] charBoard, int exitDir) {
+        Geometry geometry = geometryOf(charBoard, exitDir);
+        initFromCars(findCars(charBoard, geometry), geometry);
+    }
+
+    /**
+     * board from text in the same format as a board file: rows of cells
+     * up to a blank line, an exit line or the end, '.' for empty and WALL
+     * for a wall, then optionally "exit left" or "exit right" (the
+     * default), anything after that ignored
+     * @param text: e.g. the body of a request
+     * @return new board
+     * @throws IllegalArgumentException if the text is not a valid board
+     */
+    public static Board parse(String text) {
+        java.util.List<String> lines = java.util.Arrays.asList(text.split("\r?\n"));
+        char[][] charBoard = readGrid(lines);
+        return new Board(charBoard, readExit(lines, charBoard.length));
+    }
+
+    /**
+     * grid rows at the start of a board's lines
+     * @param lines: text of a board, see parse()
+     * @return one row per line, trailing blanks dropped
+     * @throws IllegalArgumentException if there are no rows or they differ in width
+     */
+    private static char[][] readGrid(java.util.List<String> lines) {
+        int rows = 0;
+        while (rows < lines.size() && !lines.get(rows).isBlank() && !isExitLine(lines.get(rows)))
+            rows++;
+        if (rows == 0)
+            throw new IllegalArgumentException("invalid board: not long enough");
+        char[][] charBoard = new char[rows][];
+        for (int i = 0; i < rows; i++) {
+            charBoard[i] = lines.get(i).stripTrailing().toCharArray();
+            if (charBoard[i].length != charBoard[0].length)
+                throw new IllegalArgumentException("invalid board: rows are not the same width");
+        }
+        return charBoard;
+    }
+
+    /**
+     * exit side given on the line after the grid rows
+     * @param lines: text of a board, see parse()
+     * @param rows: grid rows before it
+     * @return FORWARD for the right edge, BACKWARD for the left
+     * @throws IllegalArgumentException if the exit line names neither side
+     */
+    private static int readExit(java.util.List<String> lines, int rows) {
+        if (rows >= lines.size() || !isExitLine(lines.get(rows)))
+            return FORWARD;
+        String side = lines.get(rows).trim().substring(4).trim();
+        if (side.equals("right"))
+            return FORWARD;
+        if (side.equals("left"))
+            return BACKWARD;
+        throw new IllegalArgumentException("invalid board: exit must be left or right, found " + side);
+    }
+
+    private static boolean isExitLine(String line) {
+        return line.trim().startsWith("exit");
+    }
+
+    /**
+     * shape of a grid, w/ its WALL cells as walls
+     * @param charBoard: rectangular grid
+     * @param exitDir: FORWARD or BACKWARD
+     * @throws IllegalArgumentException if the grid is not rectangular or does not fit a Geometry
+     */
+    private static Geometry geometryOf(char[][] charBoard, int exitDir) {
+        int rows = charBoard.length;
+        int cols = (rows == 0) ? 0 : charBoard[0].length;
+        for (char[] row : charBoard) {
+            if (row.length != cols)
+                throw new IllegalArgumentException("expected " + cols + " columns, found " + row.length);
+        }
+        if (rows * cols > Geometry.MAX_CELLS)
+            throw new IllegalArgumentException("board has more than " + Geometry.MAX_CELLS + " cells: " + rows + "x" + cols);
+        long walls = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (charBoard[i][j] == WALL)
+                    walls |= 1L << (i * cols + j);
+            }
+        }
+        return new Geometry(rows, cols, walls, exitDir);
+    }
+
+    /**
+     * find every car on a grid of cells
+     * @param charBoard: grid of geometry's shape, '.' for empty, WALL for a wall
+     * @param geometry
+     * @return cars in the order their names first appear, row by row
+     * @throws IllegalArgumentException if a car is not a straight line of
+     *         2 or more cells, or there is no horizontal X car
+     */
+    private static ArrayList<Car> findCars(char[][] charBoard, Geometry geometry) {
+        int rows = geometry.getRows();
+        int cols = geometry.getCols();
+        ArrayList<Car> listOfCars = new ArrayList<Car>();
+        ArrayList<Character> listOfCarNames = new ArrayList<Character>();
+
+        // take names of all cars
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (charBoard[i][j] != '.' && charBoard[i][j] != WALL && !(listOfCarNames.contains(charBoard[i][j])))
+                    listOfCarNames.add(charBoard[i][j]);
+            }
+        }
+
+        /**
+         * find and create new cars
+         * iterate through names found
+         */
+        for (char ch : listOfCarNames) {
+            int carLen = 0;
+            boolean topFound = false;    // checks if first part of car is found
+            int findX = 0;
+            int findY = 0;
+            int findDir = 0;
+
+            // iterate through the board
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    // if char on board matches with car name ch
+                    if (charBoard[i][j] == ch) {
+                        carLen++;
+                        // if this is first instance of car part
+                        if (!topFound) {
+                            findX = j;
+                            findY = i;
+                            topFound = true;
+                        }
+
+                        // establish direction using 2nd part of car
+                        if (carLen >= 2 && j == findX) {
+                            findDir = Car.VERT;
+                        } else if (carLen >= 2 && i == findY) {
+                            findDir = Car.HORI;
+                        }
+                    }
+                }
+            }
+
+            // every cell of the car must be in one straight line from its top/left
+            if (carLen < 2)
+                throw new IllegalArgumentException("car " + ch + " is only 1 cell");
+            for (int k = 0; k < carLen; k++) {
+                int row = findY + ((findDir == Car.VERT) ? k : 0);
+                int col = findX + ((findDir == Car.HORI) ? k : 0);
+                if (row >= rows || col >= cols || charBoard[row][col] != ch)
+                    throw new IllegalArgumentException("car " + ch + " is not a straight line");
+            }
+
+            // make new Car with newly-found parameters
+            listOfCars.add(new Car(ch, findX, findY, carLen, findDir));
+        }
+
+        int xIndex = listOfCarNames.indexOf('X');
+        if (xIndex < 0)
+            throw new IllegalArgumentException("no X car");
+        if (listOfCars.get(xIndex).getDir() != Car.HORI)
+            throw new IllegalArgumentException("X car is not horizontal");
+        return listOfCars;
+    }
+
+    /**
+     * switch to compact encoding: shared layout + one position per car
+     * @param listOfCars: cars found on the starting board
+     * @param geometry: board they are on
+     */
+    private void initFromCars(ArrayList<Car> listOfCars, Geometry geometry) {
+        pathId = -1;
+        layout = new CarLayout(listOfCars, geometry);
+        positions = new byte[listOfCars.size()];
+        for (int i = 0; i < positions.length; i++) {
+            Car c = listOfCars.get(i);
+            positions[i] = (byte) ((c.getDir() == Car.HORI) ? c.getX() : c.getY());
+        }
+        occupied = layout.occupancy(positions);
+        state = CarLayout.pack(positions);
+
+        // heuristic cost is computed on first use
+        heurCost = Double.NaN;
+        // hash car positions
+        zobristKey = layout.zobrist(positions);
+    }
+
+    /**
+     * constructor from a layout and car positions
+     * @param layout: cars shared with other states of the same puzzle
+     * @param positions: top/left of each car along its lane, copied
+     */
+    public Board(CarLayout layout, byte[] positions) {
+        this.layout = layout;
+        this.positions = positions.clone();
+        occupied = layout.occupancy(this.positions);
+        state = CarLayout.pack(this.positions);
+        pathId = -1;
+        heurCost = Double.NaN;
+        zobristKey = layout.zobrist(this.positions);
     }
 
     /**
      * deep copy constructor
+     * layout is immutable and shared
      * @param otherBoard
      */
     public Board(Board otherBoard) {
-        charBoard = new char[SIZE][SIZE];
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++)
-                charBoard[i][j] = otherBoard.charBoard[i][j];
-        }
-        listOfCars = new ArrayList<Car>();
-        for (Car c : otherBoard.listOfCars)
-            listOfCars.add(new Car(c));     // deep copy of cars
-        listOfCarNames = new ArrayList<Character>();
-        for (char ch : otherBoard.listOfCarNames)
-            listOfCarNames.add(ch);
+        layout = otherBoard.layout;
+        positions = otherBoard.positions.clone();
+        occupied = otherBoard.occupied;
+        state = otherBoard.state;
 
-        lastMoveNode = otherBoard.lastMoveNode;
-        hashNum = otherBoard.hashNum;
+        pathId = otherBoard.pathId;
+        heurCost = otherBoard.heurCost;
+        zobristKey = otherBoard.zobristKey;
     }
 
     // getters
-    public char[][] getCharBoard() { return charBoard; }
-    public ArrayList<Car> getListOfCars() { return listOfCars; }
-    public Car getCar(int index) { return listOfCars.get(index); }
-    public Car getCar(char lookFor) { return listOfCars.get(listOfCarNames.indexOf(lookFor)); }
-    public ArrayList<Character> getListOfCarNames() { return listOfCarNames; }
-    public char getCarName(int index) { return listOfCarNames.get(index); }
-    public MoveNode getLastMoveNode() { return lastMoveNode; }
-    public double getHeurCost() { return heurCost; }
-    public int getHashNum() { return hashNum; }
+    public CarLayout getLayout() { return layout; }
+    public int getNumCars() { return positions.length; }
+    public int getPosition(int index) { return positions[index]; }
+    public long getOccupied() { return occupied; }
+    public Car getCar(int index) {
+        int p = positions[index];
+        return new Car(layout.getName(index), layout.getX(index, p), layout.getY(index, p),
+                layout.getLength(index), layout.getDir(index));
+    }
+    public Car getCar(char lookFor) { return getCar(layout.indexOf(lookFor)); }
+    public char getCarName(int index) { return layout.getName(index); }
+    public int getPathId() { return pathId; }
 
+    // setters
+    public void setPathId(int id) { pathId = id; }
 
+    /**
+     * weighted cost from computeCost(), computed the first time it is asked
+     * for, so searches that never rank boards never pay for it
+     * NOTE: not admissible, use a Heuristic w/ AStarStrategy instead
+     * @return cost of this board
+     */
+    public double getHeurCost() {
+        if (Double.isNaN(heurCost))
+            heurCost = computeCost();
+        return heurCost;
+    }
+    public long getZobristKey() { return zobristKey; }
+    public int getHashNum() { return (int) (zobristKey ^ (zobristKey >>> 32)); }
 
     /**
-     * helper fcn for attemptMove
-     * takes a board, moves a car c in direction dir
-     * move is assumed to be legal
-     * @param c: car we want to move
-     * @param dir: backward or forward (-/+ 1)
-     * @return
+     * builds a char grid of the board, '.' for empty cells, WALL for walls
+     * @return new grid, rows x cols of the layout's geometry
      */
-    private void moveCar(Car c, int dir) {
-        if (c.getDir() == Car.VERT) {
-            if (dir == FORWARD) {
-                this.charBoard[c.getY()][c.getX()] = '.';
-                this.charBoard[c.getY() + c.getLength()][c.getX()] = c.getName();
-            }
-            else if (dir == BACKWARD) {
-                this.charBoard[c.getY() - 1][c.getX()] = c.getName();
-                this.charBoard[c.getY() + c.getLength() - 1][c.getX()] = '.';
-            }
-            c.setY(c.getY() + dir);
+    public char[][] getCharBoard() {
+        Geometry geometry = layout.getGeometry();
+        char[][] charBoard = new char[geometry.getRows()][geometry.getCols()];
+        for (int row = 0; row < charBoard.length; row++) {
+            for (int col = 0; col < charBoard[row].length; col++)
+                charBoard[row][col] = geometry.isWall(row, col) ? WALL : '.';
         }
-        else if (c.getDir() == Car.HORI) {
-            if (dir == FORWARD) {
-                this.charBoard[c.getY()][c.getX()] = '.';
-                this.charBoard[c.getY()][c.getX() + c.getLength()] = c.getName();
-            }
-            else if (dir == BACKWARD) {
-                this.charBoard[c.getY()][c.getX() - 1] = c.getName();
-                this.charBoard[c.getY()][c.getX() + c.getLength() - 1] = '.';
+        for (int i = 0; i < positions.length; i++) {
+            int p = positions[i];
+            for (int k = 0; k < layout.getLength(i); k++) {
+                if (layout.getDir(i) == Car.HORI)
+                    charBoard[layout.getLane(i)][p + k] = layout.getName(i);
+                else
+                    charBoard[p + k][layout.getLane(i)] = layout.getName(i);
             }
-            c.setX(c.getX() + dir);
         }
+        return charBoard;
+    }
+
+    /**
+     * builds Car objects for every car at its current position
+     * @return list of cars, in layout order
+     */
+    public ArrayList<Car> getListOfCars() {
+        ArrayList<Car> listOfCars = new ArrayList<Car>();
+        for (int i = 0; i < positions.length; i++)
+            listOfCars.add(getCar(i));
+        return listOfCars;
+    }
+
+    /**
+     * names of all cars, in layout order
+     */
+    public ArrayList<Character> getListOfCarNames() {
+        ArrayList<Character> listOfCarNames = new ArrayList<Character>();
+        for (int i = 0; i < positions.length; i++)
+            listOfCarNames.add(layout.getName(i));
+        return listOfCarNames;
+    }
+
+    /**
+     * car positions packed into one long, kept up to date on every move
+     * two boards of the same puzzle are equal iff their states are equal
+     * @return packed state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * packed state this board would have after a move, w/o making it
+     * move is assumed to be legal
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @return packed state of the successor
+     */
+    public long getStateAfterMove(int index, int dir) {
+        return CarLayout.applyMove(state, index, dir);
+    }
+
+    /**
+     * packed state this board would have after sliding a car, w/o moving it
+     * move is assumed to be legal
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @param distance: squares to slide
+     * @return packed state of the successor
+     */
+    public long getStateAfterMove(int index, int dir, int distance) {
+        return CarLayout.applyMove(state, index, dir * distance);
+    }
+
+    /**
+     * move every car to the positions in a packed state of the same layout
+     * lets one board be reused to visit many states w/o allocating
+     * @param packed: state from getState() of a board w/ this layout
+     */
+    public void loadState(long packed) {
+        CarLayout.unpack(packed, positions);
+        occupied = layout.occupancy(positions);
+        state = packed;
+        zobristKey = layout.zobrist(positions);
+        heurCost = Double.NaN;
+        pathId = -1;
+    }
+
+    /**
+     * zobrist key this board would have after a move, w/o making it
+     * move is assumed to be legal
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @return 64-bit hash of the successor
+     */
+    public long getZobristKeyAfterMove(int index, int dir) {
+        int p = positions[index];
+        return zobristKey ^ layout.getZobrist(index, p) ^ layout.getZobrist(index, p + dir);
+    }
+
+    /**
+     * boards are equal if they hold the same cars at the same positions
+     * the move history is not compared
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Board))
+            return false;
+        Board b = (Board) other;
+        return state == b.state && zobristKey == b.zobristKey && layout == b.layout;
+    }
+
+    @Override
+    public int hashCode() {
+        return getHashNum();
+    }
+
+    /**
+     * check if the path from xCar to the exit is empty
+     */
+    public boolean isExitClear() {
+        int x = layout.getXIndex();
+        return (occupied & layout.getExitPath(positions[x])) == 0;
+    }
+
+    /**
+     * check if xCar is at the exit
+     */
+    public boolean isSolved() {
+        return positions[layout.getXIndex()] == layout.getGoalPosition();
+    }
+
+    /**
+     * check if car can move by 1 in direction dir
+     * @param index: index of car in layout
+     * @param dir: direction of move (forward/back, +/- 1)
+     * @return true if the cell entered is on the board and empty
+     */
+    public boolean canMove(int index, int dir) {
+        long cell = layout.getEntryCell(index, positions[index], dir);
+        return cell != 0 && (occupied & cell) == 0;
+    }
+
+    /**
+     * how far car can slide in direction dir
+     * @param index: index of car in layout
+     * @param dir: direction of move (forward/back, +/- 1)
+     * @return squares until the edge or another car, 0 if it cannot move
+     */
+    public int getSlideLimit(int index, int dir) {
+        int p = positions[index];
+        int distance = 0;
+        long cell;
+        while ((cell = layout.getEntryCell(index, p, dir)) != 0 && (occupied & cell) == 0) {
+            distance++;
+            p += dir;
+        }
+        return distance;
+    }
 
-        this.heurCost = computeCost();      // update heuristic cost
-        this.hashNum = java.util.Arrays.deepHashCode(this.charBoard);   // update hashcode of board
+    /**
+     * moves car at index in direction dir in place
+     * only positions, occupancy and packed state are updated, no move is
+     * recorded, so a search can try a move and take it back cheaply
+     * move is assumed to be legal
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     */
+    public void makeMove(int index, int dir) {
+        makeMove(index, dir, 1);
+    }
+
+    /**
+     * slides car at index distance squares in direction dir in place
+     * move is assumed to be legal, see getSlideLimit()
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @param distance: squares to slide
+     */
+    public void makeMove(int index, int dir, int distance) {
+        int p = positions[index];
+        int to = p + dir * distance;
+        // clear old cells and set new ones in a single xor
+        occupied ^= layout.getCarMask(index, p) ^ layout.getCarMask(index, to);
+        positions[index] = (byte) to;
+        state = CarLayout.applyMove(state, index, dir * distance);
+        zobristKey ^= layout.getZobrist(index, p) ^ layout.getZobrist(index, to);
+    }
+
+    /**
+     * takes back a move made by makeMove()
+     * @param index: car that was moved
+     * @param dir: direction it was moved in
+     */
+    public void unmakeMove(int index, int dir) {
+        makeMove(index, -dir, 1);
+    }
+
+    /**
+     * takes back a slide made by makeMove()
+     * @param index: car that was moved
+     * @param dir: direction it was moved in
+     * @param distance: squares it slid
+     */
+    public void unmakeMove(int index, int dir, int distance) {
+        makeMove(index, -dir, distance);
+    }
+
+    /**
+     * helper fcn for attemptMove
+     * moves car at index in direction dir
+     * move is assumed to be legal
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @param distance: squares to move
+     */
+    private void moveCar(int index, int dir, int distance) {
+        makeMove(index, dir, distance);     // also updates zobrist key
+
+        this.heurCost = Double.NaN;     // old cost is stale, recompute on next use
     }
 
     /**
      * check if car can move by 1 in direction dir
      * is move legal?
-     * @param c: Car we want to move
+     * @param index: index of car we want to move
+     * @param dir: direction of move (forward/back, +/- 1)
+     * @return this board w/ legal move applied, otherwise null if illegal move
+     */
+    public Board attemptMove(int index, int dir) {
+        if (!canMove(index, dir))
+            return null;    // thus, move is illegal
+
+        moveCar(index, dir, 1);
+        return this;
+    }
+
+    /**
+     * check if car can slide distance squares in direction dir
+     * @param index: index of car we want to move
+     * @param dir: direction of move (forward/back, +/- 1)
+     * @param distance: squares to slide
+     * @return this board w/ legal move applied, otherwise null if illegal move
+     */
+    public Board attemptMove(int index, int dir, int distance) {
+        if (distance < 1 || getSlideLimit(index, dir) < distance)
+            return null;
+
+        moveCar(index, dir, distance);
+        return this;
+    }
+
+    /**
+     * check if car can move by 1 in direction dir
+     * is move legal?
+     * @param c: Car we want to move, updated to its new position
      * @param dir: direction of move (forward/back, +/- 1)
      * @return new board w/ legal move, otherwise null if illegal move
      */
     public Board attemptMove(Car c, int dir) {
-        /**
-         * check if car can move by 1 in direction dir
-         * if yes, return new board
-         * else, return null
-         */
-        if (dir == FORWARD) {
-            // forwards HORIZONTAL
-            if (c.getDir() == Car.HORI && c.getX() + c.getLength() < 6) {
-                if (this.charBoard[c.getY()][c.getX()+c.getLength()] == '.') {
-                    moveCar(c, dir);
-                    this.lastMoveNode = new MoveNode(dir, c, this.lastMoveNode);
-                    return this;
-                }
-            }
-            // forwards VERTICAL
-            else if (c.getDir() == Car.VERT && c.getY() + c.getLength() < 6) {
-                if (this.charBoard[c.getY()+c.getLength()][c.getX()] == '.') {
-                    moveCar(c, dir);
-                    this.lastMoveNode = new MoveNode(dir, c, this.lastMoveNode);
-                    return this;
-                }
-            }
-        }
-        else if (dir == BACKWARD) {
-            // backwards HORIZONTAL
-            if (c.getDir() == Car.HORI && c.getX() + dir >= 0) {
-                if (this.charBoard[c.getY()][c.getX()+dir] == '.') {
-                    moveCar(c, dir);
-                    this.lastMoveNode = new MoveNode(dir, c, this.lastMoveNode);
-                    return this;
-                }
-            }
-            // backwards VERTICAL
-            else if (c.getDir() == Car.VERT && c.getY() + dir >= 0) {
-                if (this.charBoard[c.getY()+dir][c.getX()] == '.') {
-                    moveCar(c, dir);
-                    this.lastMoveNode = new MoveNode(dir, c, this.lastMoveNode);
-                    return this;
-                }
-            }
-        }
+        int index = layout.indexOf(c.getName());
+        if (attemptMove(index, dir) == null)
+            return null;
 
-        // thus, move is illegal
-        return null;
+        if (c.getDir() == Car.HORI)
+            c.setX(c.getX() + dir);
+        else
+            c.setY(c.getY() + dir);
+        return this;
     }
 
     /**
@@ -249,10 +609,18 @@ public class Board {
         int moveCost = 0;
         double closeCost = 0;
         int exitCost = 0;
-        Car xCar = this.getCar('X');
+        int xIndex = layout.getXIndex();
+        if (xIndex < 0)
+            return 0;       // no xCar, nothing to measure
+        int xRow = layout.getLane(xIndex);
+        Geometry geometry = layout.getGeometry();
+        // column just past the exit, and the last one inside it
+        int exitCol = (geometry.getExitDir() == FORWARD) ? geometry.getCols() : -1;
+        int edgeCol = exitCol - geometry.getExitDir();
 
+        for (int c = 0; c < positions.length; c++) {
+            int p = positions[c];
 
-        for (Car c : this.listOfCars) {
             /**
              * implementing blockCost:
              * how many cars block xCar's path?
@@ -260,47 +628,21 @@ public class Board {
              * otherwise, there would be no solution
              * thus, any car blocking xCar must be vertical
              */
-            boolean block = false;
-            if (c.getDir() == Car.VERT) {
+            if (layout.getDir(c) == Car.VERT) {
                 // check that c is blocking xCar somehow
-                for (int i = 0; i < c.getLength(); i++) {
-                    if (c.getY() + i == xCar.getY()) {
-                        blockCost++;
-                        block = true;
-                    }
-                }
-//                if (block) {
-//                    // recursively check what cars block c
-//                    computeCostHelper(c, blockCost);
-//                }
+                if (p <= xRow && xRow < p + layout.getLength(c))
+                    blockCost++;
             }
 
             /**
              * implementing moveCost:
              * how many possible moves are there in the board's current state?
              * NOTE: check spaces in front + behind car
-             * conditions modified from attemptMove()
              */
-            // forwards HORIZONTAL
-            if (c.getDir() == Car.HORI && c.getX() + c.getLength() < 6) {
-                if (this.charBoard[c.getY()][c.getX()+c.getLength()] == '.')
-                    moveCost++;
-            }
-            // forwards VERTICAL
-            else if (c.getDir() == Car.VERT && c.getY() + c.getLength() < 6) {
-                if (this.charBoard[c.getY()+c.getLength()][c.getX()] == '.')
-                    moveCost++;
-            }
-            // backwards HORIZONTAL
-            if (c.getDir() == Car.HORI && c.getX() > 0) {
-                if (this.charBoard[c.getY()][c.getX()-1] == '.')
-                    moveCost++;
-            }
-            // backwards VERTICAL
-            else if (c.getDir() == Car.VERT && c.getY() > 0) {
-                if (this.charBoard[c.getY()-1][c.getX()] == '.')
-                    moveCost++;
-            }
+            if (canMove(c, FORWARD))
+                moveCost++;
+            if (canMove(c, BACKWARD))
+                moveCost++;
 
             /**
              * implementing closeCost:
@@ -310,8 +652,8 @@ public class Board {
              * if a car that isn't xCar is close to exit,
              * creates higher cost than car that is further from exit
              */
-            int a = java.lang.Math.abs(6 - c.getX());
-            int b = java.lang.Math.abs(2 - c.getY());
+            int a = java.lang.Math.abs(exitCol - layout.getX(c, p));
+            int b = java.lang.Math.abs(xRow - layout.getY(c, p));
             closeCost += java.lang.Math.sqrt(a*a + b*b);        // sqrt( a^2 + b^2 )
         }
 
@@ -320,12 +662,14 @@ public class Board {
          * how much space is there near the exit?
          * NOTE: if spaces near the exit have car parts, cost is increased
          */
-        for (int i = 0; i < Board.SIZE; i++) {
+        for (int i = 0; i < geometry.getRows(); i++) {
             // check column in front of exit
-            if (this.charBoard[i][5] != '.') exitCost++;
+            if ((occupied & geometry.cellBit(i, edgeCol)) != 0) exitCost++;
+        }
+        for (int i = 0; i < geometry.getCols(); i++) {
             // check row of xCar, avoid counting duplicate square in front of exit
-            if (this.charBoard[2][i] != '.' && i != 5)
-                exitCost += i;
+            if ((occupied & geometry.cellBit(xRow, i)) != 0 && i != edgeCol)
+                exitCost += (exitCol < 0) ? geometry.getCols() - 1 - i : i;
         }
 
         return blockCost + moveCost - closeCost + exitCost;
@@ -340,15 +684,24 @@ public class Board {
 //        }
 //    }
 
-    public static void printMovesToScreen(MoveNode currNode) {
-        if (currNode.getParentMove() != null)
-            printMovesToScreen(currNode.getParentMove());
-        System.out.println(currNode.getMoveName());
+    /**
+     * print moves, one per line, e.g. XR1
+     * @param layout: cars the moves refer to
+     * @param moves: packed moves, see Move
+     */
+    public static void printMovesToScreen(CarLayout layout, int[] moves) {
+        for (int move : moves)
+            System.out.println(Move.format(layout, move));
     }
 
-    public static void printMovesToFile(PrintWriter writer, MoveNode currNode) {
-        if (currNode.getParentMove() != null)
-            printMovesToFile(writer, currNode.getParentMove());
-        writer.append(currNode.getMoveName() + "\n");
+    /**
+     * write moves, one per line, e.g. XR1
+     * @param writer
+     * @param layout: cars the moves refer to
+     * @param moves: packed moves, see Move
+     */
+    public static void printMovesToFile(PrintWriter writer, CarLayout layout, int[] moves) {
+        for (int move : moves)
+            writer.append(Move.format(layout, move) + "\n");
     }
 }
@@ -0,0 +1,57 @@
+package rushhour;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * runs another strategy through a SolutionCache
+ * a board already solved by that strategy gets its stored moves back
+ * w/o searching; the stats of a hit show 0 nodes expanded
+ */
+public class CachingStrategy implements SearchStrategy {
+    private final SearchStrategy strategy;
+    private final SolutionCache cache;
+
+    /**
+     * constructor
+     * @param strategy: run on cache misses
+     * @param cache: may be shared w/ other strategies, entries are kept per strategy name
+     */
+    public CachingStrategy(SearchStrategy strategy, SolutionCache cache) {
+        this.strategy = strategy;
+        this.cache = cache;
+    }
+
+    // getters
+    public SearchStrategy getStrategy() { return strategy; }
+    public SolutionCache getCache() { return cache; }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        try {
+            SearchStats stats = new SearchStats();
+            stats.start();
+            int[] moves = cache.get(start, strategy.getName());
+            if (moves != null) {
+                Board finalBoard = new Board(start);
+                for (int m : moves)
+                    finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+                stats.stop();
+                return new SearchResult(finalBoard, moves, stats, getName());
+            }
+
+            SearchResult result = strategy.search(start, budget);
+            if (result.isSolved())
+                cache.put(start, strategy.getName(), result.getMoves());
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public MoveMetric getMetric() { return strategy.getMetric(); }
+
+    @Override
+    public String getName() { return strategy.getName(); }
+}
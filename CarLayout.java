@@ -0,0 +1,287 @@
+package rushhour;
+
+import java.util.List;
+
+/**
+ * immutable description of the cars on a board
+ * every state reached from the same starting board shares one layout,
+ * so a state only has to store the position of each car
+ *
+ * cells are numbered row-major (row * cols + col), see Geometry, and a
+ * set of cells is a bitmask in a long, bit i set if cell i is covered
+ */
+public final class CarLayout {
+    // bits used per car in a packed state, positions run 0..lane length - 2
+    public static final int POS_BITS = 3;
+    public static final long POS_MASK = (1L << POS_BITS) - 1;
+    // most cars a packed state can hold
+    public static final int MAX_CARS = 63 / POS_BITS;
+    // seed for zobrist keys
+    private static final long ZOBRIST_SEED = 0x5EED_2B0A_4D11L;
+
+    private final Geometry geometry;
+    private final char[] names;
+    private final int[] lengths;
+    private final int[] dirs;
+    private final int[] lanes;          // row of a HORI car, column of a VERT car
+    private final int xIndex;           // index of X car, -1 if missing
+    private final int goalPosition;     // position of X car at the exit
+    private final long[][] carMasks;    // cells covered by car i with its top/left at p
+    private final long[][] frontCells;  // cell car i enters moving forward from p, 0 if off board
+    private final long[][] backCells;   // cell car i enters moving backward from p, 0 if off board
+    private final long[] exitPaths;     // cells between X car at p and the exit
+    private final long[][] zobrist;     // random key for car i at position p
+    private final long fingerprint;     // hash of the geometry and every car's name, lane, direction and length
+
+    /**
+     * builds the layout from cars found on a standard board
+     * @param cars: cars in the order their names were found
+     */
+    public CarLayout(List<Car> cars) {
+        this(cars, Geometry.STANDARD);
+    }
+
+    /**
+     * builds the layout from cars found on a starting board
+     * @param cars: cars in the order their names were found
+     * @param geometry: board the cars are on
+     * @throws IllegalArgumentException if a car does not fit its lane or a position does not fit POS_BITS
+     */
+    public CarLayout(List<Car> cars, Geometry geometry) {
+        int n = cars.size();
+        if (n > MAX_CARS)
+            throw new IllegalArgumentException("too many cars: " + n);
+
+        this.geometry = geometry;
+        names = new char[n];
+        lengths = new int[n];
+        dirs = new int[n];
+        lanes = new int[n];
+        carMasks = new long[n][];
+        frontCells = new long[n][];
+        backCells = new long[n][];
+        int foundX = -1;
+
+        for (int i = 0; i < n; i++) {
+            Car c = cars.get(i);
+            names[i] = c.getName();
+            lengths[i] = c.getLength();
+            dirs[i] = c.getDir();
+            lanes[i] = (c.getDir() == Car.HORI) ? c.getY() : c.getX();
+            if (c.getName() == 'X')
+                foundX = i;
+
+            int laneLength = geometry.getLaneLength(dirs[i]);
+            int laneCount = (dirs[i] == Car.HORI) ? geometry.getRows() : geometry.getCols();
+            if (lengths[i] > laneLength || lanes[i] >= laneCount)
+                throw new IllegalArgumentException("car " + names[i] + " does not fit the board");
+            if (laneLength - lengths[i] > POS_MASK)
+                throw new IllegalArgumentException("car " + names[i] + " has too many positions to pack");
+
+            // precompute masks for every position the car can take
+            carMasks[i] = new long[laneLength];
+            frontCells[i] = new long[laneLength];
+            backCells[i] = new long[laneLength];
+            for (int p = 0; p + lengths[i] <= laneLength; p++) {
+                long mask = 0;
+                for (int k = 0; k < lengths[i]; k++)
+                    mask |= cellAt(i, p + k);
+                carMasks[i][p] = mask;
+                if (p + lengths[i] < laneLength)
+                    frontCells[i][p] = cellAt(i, p + lengths[i]);
+                if (p > 0)
+                    backCells[i][p] = cellAt(i, p - 1);
+            }
+        }
+        xIndex = foundX;
+
+        // fixed seed, so keys are the same in every run and can be stored
+        java.util.SplittableRandom random = new java.util.SplittableRandom(ZOBRIST_SEED);
+        zobrist = new long[n][];
+        for (int i = 0; i < n; i++) {
+            zobrist[i] = new long[geometry.getLaneLength(dirs[i])];
+            for (int p = 0; p < zobrist[i].length; p++)
+                zobrist[i][p] = random.nextLong();
+        }
+
+        // the standard geometry adds nothing, so fingerprints stored before geometries existed still match
+        long h = n;
+        if (!geometry.equals(Geometry.STANDARD)) {
+            h = fold(h ^ geometry.getWalls());
+            h = fold(h ^ ((long) geometry.getRows() << 16 | geometry.getCols() << 8 | (geometry.getExitDir() & 0xFF)));
+        }
+        for (int i = 0; i < n; i++) {
+            h = fold(h ^ ((long) names[i] << 24 | (long) dirs[i] << 16 | (long) lanes[i] << 8 | lengths[i]));
+        }
+        fingerprint = h;
+
+        int cols = geometry.getCols();
+        exitPaths = new long[cols];
+        if (xIndex >= 0) {
+            int len = lengths[xIndex];
+            goalPosition = (geometry.getExitDir() == Board.FORWARD) ? cols - len : 0;
+            for (int p = 0; p + len <= cols; p++) {
+                int first = (geometry.getExitDir() == Board.FORWARD) ? p + len : 0;
+                int last = (geometry.getExitDir() == Board.FORWARD) ? cols : p;
+                long path = 0;
+                for (int col = first; col < last; col++)
+                    path |= geometry.cellBit(lanes[xIndex], col);
+                exitPaths[p] = path;
+            }
+        } else {
+            goalPosition = -1;
+        }
+    }
+
+    /**
+     * 64-bit finalizer from murmur3, spreads every input bit over the output
+     */
+    private static long fold(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * cell at offset p along the lane of car i
+     */
+    private long cellAt(int i, int p) {
+        if (dirs[i] == Car.HORI)
+            return geometry.cellBit(lanes[i], p);
+        return geometry.cellBit(p, lanes[i]);
+    }
+
+    // getters
+    public Geometry getGeometry() { return geometry; }
+    public int getNumCars() { return names.length; }
+    public char getName(int i) { return names[i]; }
+    public int getLength(int i) { return lengths[i]; }
+    public int getDir(int i) { return dirs[i]; }
+    public int getLane(int i) { return lanes[i]; }
+    public int getXIndex() { return xIndex; }
+    public int getGoalPosition() { return goalPosition; }
+    public int getLaneLength(int i) { return carMasks[i].length; }
+    public long getCarMask(int i, int p) { return carMasks[i][p]; }
+    public long getExitPath(int p) { return exitPaths[p]; }
+    public long getZobrist(int i, int p) { return zobrist[i][p]; }
+
+    /**
+     * hash of the cars themselves, same for every state of a puzzle
+     * two layouts w/ the same cars in the same order have the same
+     * fingerprint, so it and a packed state together name a board
+     * across runs, e.g. as a SolutionCache key
+     */
+    public long getFingerprint() { return fingerprint; }
+
+    /**
+     * index of the car with a given name
+     * @param name
+     * @return index, or -1 if there is no such car
+     */
+    public int indexOf(char name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == name)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * cell car i would move into from position p
+     * @param i: car index
+     * @param p: current top/left of car along its lane
+     * @param dir: backward or forward (-/+ 1)
+     * @return bit of that cell, 0 if the move would leave the board
+     */
+    public long getEntryCell(int i, int p, int dir) {
+        return (dir == Board.FORWARD) ? frontCells[i][p] : backCells[i][p];
+    }
+
+    /**
+     * x-coordinate (column) of car i's top/left when at position p
+     */
+    public int getX(int i, int p) {
+        return (dirs[i] == Car.HORI) ? p : lanes[i];
+    }
+
+    /**
+     * y-coordinate (row) of car i's top/left when at position p
+     */
+    public int getY(int i, int p) {
+        return (dirs[i] == Car.HORI) ? lanes[i] : p;
+    }
+
+    /**
+     * occupancy of every car at the given positions, and of the walls
+     * @param positions: one position per car
+     * @return bitmask of covered cells
+     */
+    public long occupancy(byte[] positions) {
+        long occupied = geometry.getWalls();
+        for (int i = 0; i < positions.length; i++)
+            occupied |= carMasks[i][positions[i]];
+        return occupied;
+    }
+
+    /**
+     * zobrist hash of every car at the given positions
+     * boards keep this up to date w/ two xors per move
+     * @param positions: one position per car
+     * @return 64-bit hash
+     */
+    public long zobrist(byte[] positions) {
+        long key = 0;
+        for (int i = 0; i < positions.length; i++)
+            key ^= zobrist[i][positions[i]];
+        return key;
+    }
+
+    /**
+     * packs car positions into a single long, POS_BITS per car
+     * @param positions
+     * @return packed state
+     */
+    public static long pack(byte[] positions) {
+        long state = 0;
+        for (int i = positions.length - 1; i >= 0; i--)
+            state = (state << POS_BITS) | positions[i];
+        return state;
+    }
+
+    /**
+     * position of car i in a packed state
+     */
+    public static int positionOf(long state, int i) {
+        return (int) ((state >>> (POS_BITS * i)) & POS_MASK);
+    }
+
+    /**
+     * packed state after car i moves by delta squares, move is assumed to be legal
+     * @param delta: dir for a single step, dir * distance for a slide
+     */
+    public static long applyMove(long state, int i, int delta) {
+        return state + ((long) delta << (POS_BITS * i));
+    }
+
+    /**
+     * check if xCar is at the exit in a packed state
+     */
+    public boolean isSolved(long state) {
+        return positionOf(state, xIndex) == goalPosition;
+    }
+
+    /**
+     * unpacks a state made by pack() into positions
+     * @param state
+     * @param positions: filled in, one entry per car
+     */
+    public static void unpack(long state, byte[] positions) {
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (byte) (state & POS_MASK);
+            state >>>= POS_BITS;
+        }
+    }
+}
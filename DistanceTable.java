@@ -0,0 +1,485 @@
+package rushhour;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * moves-to-goal of every state in one cluster, i.e. every board that can
+ * be reached from a seed board by moving its cars
+ *
+ * built once: the cluster is enumerated by BFS from the seed, then a
+ * retrograde BFS runs from all of its solved states at once. moves can
+ * always be undone, so distance to the nearest goal is the BFS depth
+ *
+ * the index is a plain sorted array of packed states: a state's rank is
+ * its position, found by binary search, and distances are one byte per
+ * rank, so a table takes 9 bytes per state. after that any board in the
+ * cluster is solved by stepping to a neighbor one closer to the goal, in
+ * time proportional to the solution length times log of the cluster size
+ *
+ * a loaded table reads both arrays straight from the memory-mapped file,
+ * so tables are paged in by the OS as they are used and never copied to
+ * the heap
+ *
+ * file layout: LAYOUT_MAGIC, metric, rows, columns and exit direction
+ * (int each), walls (long), car count (int), then each car in layout
+ * order as name, direction, lane, length and seed position (byte each),
+ * state count, sorted states (long each), distances (byte each). packed
+ * states depend on the order of the cars, so the layout is stored as is
+ * rather than found again from a grid
+ *
+ * older files hold the seed as a grid instead (GEOMETRY_MAGIC: rows,
+ * columns and exit direction, then rows * columns chars; MAGIC: a
+ * standard grid only). cars read from a grid are ordered by where they
+ * first appear, which is only the table's order if the seed's cars had
+ * not moved since it was parsed, so such a file is refused unless every
+ * state it holds is a legal board for the cars in that order
+ */
+public class DistanceTable {
+    // distance of a state that cannot reach the goal
+    public static final int UNSOLVABLE = -1;
+
+    private static final int MAGIC = 0x52484454;            // "RHDT", standard boards only
+    private static final int GEOMETRY_MAGIC = 0x52484447;   // "RHDG", seed as a grid
+    private static final int LAYOUT_MAGIC = 0x5248444C;     // "RHDL", seed as its layout
+    private static final int NO_DISTANCE = 0xFF;        // unsolvable, stored as an unsigned byte
+    private static final int MAX_DISTANCE = NO_DISTANCE - 1;
+
+    private final Board seed;
+    private final MoveMetric metric;
+    private final LongBuffer states;    // every state of the cluster, sorted
+    private final ByteBuffer distances; // unsigned moves to goal by rank, NO_DISTANCE if unsolvable
+
+    /**
+     * constructor
+     * @param seed: any board of the cluster
+     * @param metric: what counts as one move
+     * @param states: sorted states of the cluster, heap or mapped
+     * @param distances: moves to goal by rank, same size as states
+     */
+    private DistanceTable(Board seed, MoveMetric metric, LongBuffer states, ByteBuffer distances) {
+        this.seed = new Board(seed);
+        this.metric = metric;
+        this.states = states;
+        this.distances = distances;
+    }
+
+    /**
+     * enumerate the cluster of a board and find the distance of every state
+     * @param seed: any board of the cluster, not modified
+     * @param metric: what counts as one move
+     * @return new table
+     */
+    public static DistanceTable build(Board seed, MoveMetric metric) {
+        Board board = new Board(seed);
+
+        // forward BFS from the seed finds every state of the cluster
+        LongHashSet seen = new LongHashSet();
+        long[] queue = new long[1024];
+        int size = 0;
+        queue[size++] = seed.getState();
+        seen.add(seed.getState());
+        for (int head = 0; head < size; head++) {
+            board.loadState(queue[head]);
+            for (int c = 0; c < board.getNumCars(); c++) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    int limit = metric.maxDistance(board, c, dir);
+                    for (int d = 1; d <= limit; d++) {
+                        long next = board.getStateAfterMove(c, dir, d);
+                        if (!seen.add(next))
+                            continue;
+                        if (size == queue.length)
+                            queue = Arrays.copyOf(queue, size * 2);
+                        queue[size++] = next;
+                    }
+                }
+            }
+        }
+        long[] states = Arrays.copyOf(queue, size);
+        Arrays.sort(states);
+
+        // retrograde BFS from every goal state, by rank
+        CarLayout layout = seed.getLayout();
+        byte[] distances = new byte[size];
+        Arrays.fill(distances, (byte) NO_DISTANCE);
+        int[] ranks = new int[size];
+        int tail = 0;
+        for (int r = 0; r < size; r++) {
+            if (layout.getXIndex() >= 0 && layout.isSolved(states[r])) {
+                distances[r] = 0;
+                ranks[tail++] = r;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int r = ranks[head];
+            int next = (distances[r] & 0xFF) + 1;
+            board.loadState(states[r]);
+            for (int c = 0; c < board.getNumCars(); c++) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    int limit = metric.maxDistance(board, c, dir);
+                    for (int d = 1; d <= limit; d++) {
+                        int n = Arrays.binarySearch(states, board.getStateAfterMove(c, dir, d));
+                        if ((distances[n] & 0xFF) != NO_DISTANCE)
+                            continue;
+                        if (next > MAX_DISTANCE)
+                            throw new IllegalStateException("distance over " + MAX_DISTANCE + " moves");
+                        distances[n] = (byte) next;
+                        ranks[tail++] = n;
+                    }
+                }
+            }
+        }
+        return new DistanceTable(seed, metric, LongBuffer.wrap(states), ByteBuffer.wrap(distances));
+    }
+
+    // getters
+    public CarLayout getLayout() { return seed.getLayout(); }
+    public MoveMetric getMetric() { return metric; }
+    public int size() { return states.limit(); }
+
+    /**
+     * copy of the board the table was built from
+     */
+    public Board getSeed() { return new Board(seed); }
+
+    /**
+     * state at a rank, ranks run 0..size()-1 in increasing state order
+     */
+    public long getState(int rank) { return states.get(rank); }
+
+    /**
+     * rank of a state
+     * @return index in the table, or -1 if state is not in the cluster
+     */
+    public int rank(long state) {
+        int low = 0;
+        int high = states.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long s = states.get(mid);
+            if (s < state)
+                low = mid + 1;
+            else if (s > state)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * index in board's layout of each car of this table's layout
+     * boards of one cluster read from different files may list their cars
+     * in a different order or under different letters, so cars are matched
+     * by direction, lane, length and whether they are xCar; cars that share
+     * all of these can never pass each other, so they are matched in order
+     * along their lane
+     * @return car index map, or null if the cars or geometries differ
+     */
+    private int[] matchCars(Board board) {
+        CarLayout ours = getLayout();
+        CarLayout theirs = board.getLayout();
+        if (!ours.getGeometry().equals(theirs.getGeometry()))
+            return null;
+        int n = ours.getNumCars();
+        if (theirs.getNumCars() != n)
+            return null;
+
+        int[] map = new int[n];
+        for (int i = 0; i < n; i++) {
+            int before = 0;     // cars like i ahead of it on the seed
+            for (int j = 0; j < n; j++) {
+                if (sameKind(ours, i, ours, j) && seed.getPosition(j) < seed.getPosition(i))
+                    before++;
+            }
+            map[i] = -1;
+            for (int q = 0; q < n && map[i] < 0; q++) {
+                if (!sameKind(ours, i, theirs, q))
+                    continue;
+                int ahead = 0;
+                for (int r = 0; r < n; r++) {
+                    if (sameKind(theirs, q, theirs, r) && board.getPosition(r) < board.getPosition(q))
+                        ahead++;
+                }
+                if (ahead == before)
+                    map[i] = q;
+            }
+            if (map[i] < 0)
+                return null;
+        }
+        return map;
+    }
+
+    /**
+     * check if car i of one layout and car j of another move the same way
+     */
+    private static boolean sameKind(CarLayout a, int i, CarLayout b, int j) {
+        return a.getDir(i) == b.getDir(j) && a.getLane(i) == b.getLane(j)
+                && a.getLength(i) == b.getLength(j)
+                && (i == a.getXIndex()) == (j == b.getXIndex());
+    }
+
+    /**
+     * state of a board in this table's car order
+     * @param map: from matchCars()
+     */
+    private static long stateOf(Board board, int[] map) {
+        byte[] positions = new byte[map.length];
+        for (int i = 0; i < map.length; i++)
+            positions[i] = (byte) board.getPosition(map[i]);
+        return CarLayout.pack(positions);
+    }
+
+    /**
+     * check if a board is in this table's cluster
+     */
+    public boolean contains(Board board) {
+        int[] map = matchCars(board);
+        return map != null && rank(stateOf(board, map)) >= 0;
+    }
+
+    /**
+     * moves to goal from the state at a rank
+     * @return distance, or UNSOLVABLE
+     */
+    public int getDistanceByRank(int rank) {
+        int d = distances.get(rank) & 0xFF;
+        return (d == NO_DISTANCE) ? UNSOLVABLE : d;
+    }
+
+    /**
+     * moves to goal from a state of the cluster
+     * @return distance, or UNSOLVABLE
+     */
+    public int getDistance(long state) {
+        int r = rank(state);
+        if (r < 0)
+            throw new IllegalArgumentException("state not in table");
+        return getDistanceByRank(r);
+    }
+
+    /**
+     * largest distance of any solvable state, 0 for a cluster w/o goals
+     */
+    public int getMaxDistance() {
+        int max = 0;
+        for (int r = 0; r < distances.limit(); r++) {
+            int d = distances.get(r) & 0xFF;
+            if (d != NO_DISTANCE)
+                max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    /**
+     * shortest solution, found by always moving to a neighbor one move
+     * closer to the goal
+     * @param board: board of this table's cluster, not modified
+     * @return packed moves for board's own cars, or null if the board cannot be solved
+     */
+    public int[] solve(Board board) {
+        int[] map = matchCars(board);
+        int r = (map == null) ? -1 : rank(stateOf(board, map));
+        if (r < 0)
+            throw new IllegalArgumentException("board not in table");
+        int distance = getDistanceByRank(r);
+        if (distance == UNSOLVABLE)
+            return null;
+
+        Board current = new Board(seed);
+        current.loadState(states.get(r));
+        int[] moves = new int[distance];
+        for (int i = 0; i < distance; i++) {
+            int move = closerMove(current, distance - i - 1);
+            int car = Move.getCar(move);
+            current.makeMove(car, Move.getDir(move), Move.getDistance(move));
+            moves[i] = Move.encode(map[car], Move.getDir(move), Move.getDistance(move));
+        }
+        return moves;
+    }
+
+    /**
+     * a move from board to a state at the wanted distance
+     * @return packed move
+     */
+    private int closerMove(Board board, int wanted) {
+        for (int c = 0; c < board.getNumCars(); c++) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                int limit = metric.maxDistance(board, c, dir);
+                for (int d = 1; d <= limit; d++) {
+                    if (getDistance(board.getStateAfterMove(c, dir, d)) == wanted)
+                        return Move.encode(c, dir, d);
+                }
+            }
+        }
+        throw new IllegalStateException("table has no neighbor at distance " + wanted);
+    }
+
+    /**
+     * write the table to a file
+     * @param filename
+     */
+    public void save(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            CarLayout layout = getLayout();
+            Geometry geometry = layout.getGeometry();
+            out.writeInt(LAYOUT_MAGIC);
+            out.writeInt(metric.ordinal());
+            out.writeInt(geometry.getRows());
+            out.writeInt(geometry.getCols());
+            out.writeInt(geometry.getExitDir());
+            out.writeLong(geometry.getWalls());
+            out.writeInt(layout.getNumCars());
+            for (int i = 0; i < layout.getNumCars(); i++) {
+                out.writeByte(layout.getName(i));
+                out.writeByte(layout.getDir(i));
+                out.writeByte(layout.getLane(i));
+                out.writeByte(layout.getLength(i));
+                out.writeByte(seed.getPosition(i));
+            }
+            out.writeInt(size());
+            for (int r = 0; r < size(); r++)
+                out.writeLong(states.get(r));
+            for (int r = 0; r < size(); r++)
+                out.writeByte(distances.get(r));
+        }
+    }
+
+    /**
+     * read a table written by save()
+     * the file is memory-mapped and the table reads its states and
+     * distances from the mapping, which stays valid after this returns
+     * @param filename
+     * @return the table
+     */
+    public static DistanceTable load(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = in.getInt();
+            if (magic != MAGIC && magic != GEOMETRY_MAGIC && magic != LAYOUT_MAGIC)
+                throw new IOException("not a distance table: " + filename);
+            int ordinal = in.getInt();
+            if (ordinal < 0 || ordinal >= MoveMetric.values().length)
+                throw new IOException("bad move metric in " + filename);
+            MoveMetric metric = MoveMetric.values()[ordinal];
+
+            int rows = Board.SIZE;
+            int cols = Board.SIZE;
+            int exitDir = Board.FORWARD;
+            if (magic != MAGIC) {
+                rows = in.getInt();
+                cols = in.getInt();
+                exitDir = in.getInt();
+                if (rows < 1 || cols < 1 || rows * cols > Geometry.MAX_CELLS)
+                    throw new IOException("bad board size in " + filename + ": " + rows + "x" + cols);
+            }
+            Board seed = (magic == LAYOUT_MAGIC) ? readSeed(in, rows, cols, exitDir) : readGrid(in, rows, cols, exitDir);
+
+            int count = in.getInt();
+            if (count < 0 || (long) count * 9 > in.remaining())
+                throw new IOException("distance table truncated: " + filename);
+            LongBuffer states = in.slice(in.position(), 8 * count).asLongBuffer();
+            ByteBuffer distances = in.slice(in.position() + 8 * count, count);
+            DistanceTable table = new DistanceTable(seed, metric, states, distances);
+            if (magic != LAYOUT_MAGIC && (table.rank(seed.getState()) < 0 || !table.fitsLayout()))
+                throw new IOException(filename + " was saved w/ its cars in another order, build it again");
+            return table;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("bad distance table " + filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * check that every state puts each car inside its lane and no two
+     * cars or a car and a wall on one cell
+     */
+    private boolean fitsLayout() {
+        CarLayout layout = getLayout();
+        int cells = Long.bitCount(layout.getGeometry().getWalls());
+        for (int i = 0; i < layout.getNumCars(); i++)
+            cells += layout.getLength(i);
+        byte[] positions = new byte[layout.getNumCars()];
+        for (int r = 0; r < size(); r++) {
+            CarLayout.unpack(states.get(r), positions);
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] + layout.getLength(i) > layout.getLaneLength(i))
+                    return false;
+            }
+            if (Long.bitCount(layout.occupancy(positions)) != cells)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * seed of a LAYOUT_MAGIC file: its cars in layout order, at their seed positions
+     * @throws IllegalArgumentException if the cars don't fit the board or overlap
+     */
+    private static Board readSeed(MappedByteBuffer in, int rows, int cols, int exitDir) {
+        Geometry geometry = new Geometry(rows, cols, in.getLong(), exitDir);
+        int n = in.getInt();
+        if (n < 0 || n > CarLayout.MAX_CARS)
+            throw new IllegalArgumentException("bad car count: " + n);
+        java.util.List<Car> cars = new java.util.ArrayList<Car>();
+        byte[] positions = new byte[n];
+        int cells = Long.bitCount(geometry.getWalls());
+        for (int i = 0; i < n; i++) {
+            char name = (char) in.get();
+            int dir = in.get();
+            int lane = in.get();
+            int length = in.get();
+            positions[i] = in.get();
+            if (dir != Car.HORI && dir != Car.VERT)
+                throw new IllegalArgumentException("car " + name + " has a bad direction");
+            if (positions[i] < 0 || positions[i] + length > geometry.getLaneLength(dir))
+                throw new IllegalArgumentException("car " + name + " does not fit the board");
+            cars.add((dir == Car.HORI) ? new Car(name, positions[i], lane, length, dir)
+                    : new Car(name, lane, positions[i], length, dir));
+            cells += length;
+        }
+        CarLayout layout = new CarLayout(cars, geometry);
+        if (Long.bitCount(layout.occupancy(positions)) != cells)
+            throw new IllegalArgumentException("cars overlap");
+        return new Board(layout, positions);
+    }
+
+    /**
+     * seed of an older file, stored as a grid
+     */
+    private static Board readGrid(MappedByteBuffer in, int rows, int cols, int exitDir) {
+        char[][] grid = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++)
+                grid[row][col] = (char) in.get();
+        }
+        return new Board(grid, exitDir);
+    }
+
+    /**
+     * command line entry point, builds and saves the table of a puzzle's cluster
+     * usage: DistanceTable <puzzle file> <table file> [step|slide]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: DistanceTable <puzzle file> <table file> [step|slide]");
+            return;
+        }
+        MoveMetric metric = (args.length > 2) ? MoveMetric.valueOf(args[2].toUpperCase()) : MoveMetric.STEP;
+        long start = System.nanoTime();
+        DistanceTable table = build(new Board(args[0]), metric);
+        table.save(args[1]);
+        System.out.println("states " + table.size() + ", max distance " + table.getMaxDistance()
+                + ", seed distance " + table.getDistance(table.seed.getState())
+                + ", " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
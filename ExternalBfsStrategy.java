@@ -0,0 +1,461 @@
+package rushhour;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * breadth first search w/ its layers on disk instead of in RAM
+ *
+ * each depth layer is a file of sorted, distinct packed states. expanding
+ * a layer fills a buffer of successors; each full buffer is sorted and
+ * written out as a run. the runs are then merged into the next layer,
+ * dropping states that are also in the current or previous layer. every
+ * move can be undone, so a successor is never more than one layer back,
+ * and those two layers are all the duplicate detection needs: there is no
+ * visited set in memory at all
+ *
+ * files are only read and written front to back, through large buffers,
+ * and RAM use is bounded by the buffer size given to the constructor.
+ * the path is rebuilt from the goal by finding, one layer back at a time,
+ * a state that is one move away
+ */
+public class ExternalBfsStrategy implements SearchStrategy {
+    // RAM used for buffers if none is given
+    public static final long DEFAULT_RAM_BYTES = 64L << 20;
+
+    private static final int MIN_IO_BUFFER = 64 << 10;
+    private static final int MAX_IO_BUFFER = 1 << 20;
+    // no solved state found yet
+    private static final long NO_GOAL = -1;
+
+    private final MoveMetric metric;
+    private final Path tempDir;
+    private final long ramBytes;
+    private final int ioBuffer;         // bytes per file read or written at once
+    private final int runStates;        // successors sorted in memory per run
+    private final int fanIn;            // runs merged at once
+
+    /**
+     * constructor for single step moves, in the system temp directory
+     */
+    public ExternalBfsStrategy() {
+        this(MoveMetric.STEP, Paths.get(System.getProperty("java.io.tmpdir")), DEFAULT_RAM_BYTES);
+    }
+
+    /**
+     * constructor
+     * @param metric: what counts as one move
+     * @param tempDir: directory the layer files are written under
+     * @param ramBytes: memory for the run buffer and file buffers
+     */
+    public ExternalBfsStrategy(MoveMetric metric, Path tempDir, long ramBytes) {
+        if (ramBytes < 1 << 20)
+            throw new IllegalArgumentException("RAM budget must be at least 1 MB: " + ramBytes);
+        this.metric = metric;
+        this.tempDir = tempDir;
+        this.ramBytes = ramBytes;
+        this.ioBuffer = (int) Math.max(MIN_IO_BUFFER, Math.min(MAX_IO_BUFFER, ramBytes / 64));
+        // half for sorting runs, half for the readers and writer of a merge
+        this.runStates = (int) Math.min(Integer.MAX_VALUE - 8, ramBytes / 2 / 8);
+        this.fanIn = (int) Math.max(2, ramBytes / 2 / ioBuffer - 3);
+    }
+
+    // getters
+    public Path getTempDir() { return tempDir; }
+    public long getRamBytes() { return ramBytes; }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        return run(start, budget, true);
+    }
+
+    /**
+     * run the BFS until every reachable board has been seen, even past the
+     * first solution; the stats' layer sizes then cover the whole space
+     * @param start: board to start from, not modified
+     * @param budget: limits on time and boards expanded, memory is bounded by the constructor
+     * @return result w/ a shortest solution if there is one
+     */
+    public SearchResult explore(Board start, SearchBudget budget) {
+        return run(start, budget, false);
+    }
+
+    /**
+     * the BFS, in its own directory under tempDir that is removed afterwards
+     * @param stopAtGoal: return once a solved board is generated
+     */
+    private SearchResult run(Board start, SearchBudget budget, boolean stopAtGoal) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        int[] cars = relevance.getMovableCars();
+        CarLayout layout = start.getLayout();
+        Board board = new Board(start);     // scratch board, reloaded for each state
+
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(tempDir, "bfs-");
+            List<Path> layers = new ArrayList<Path>();
+            layers.add(dir.resolve("layer-0"));
+            try (StateWriter out = new StateWriter(layers.get(0), ioBuffer)) {
+                out.write(start.getState());
+            }
+            stats.recordReached(0);
+
+            long goal = layout.isSolved(start.getState()) ? start.getState() : NO_GOAL;
+            int goalDepth = 0;
+            long visited = 1;
+            long[] buffer = new long[runStates];
+            int depth = 0;
+
+            while (goal == NO_GOAL || !stopAtGoal) {
+                // expand the layer into sorted runs
+                List<Path> runs = new ArrayList<Path>();
+                int size = 0;
+                long generated = 0;
+                try (StateReader in = new StateReader(layers.get(depth), ioBuffer)) {
+                    while (in.hasNext()) {
+                        SearchStatus over = budget.check(stats, ramBytes);
+                        if (over != null) {
+                            stats.stop();
+                            return SearchResult.overBudget(stats, getName(), over);
+                        }
+                        board.loadState(in.next());
+                        stats.recordExpanded();
+                        long expandStart = stats.clock();
+                        for (int c : cars) {
+                            for (int d = Board.BACKWARD; d <= Board.FORWARD; d += 2) {
+                                int limit = metric.maxDistance(board, c, d);
+                                for (int k = 1; k <= limit; k++) {
+                                    long next = board.getStateAfterMove(c, d, k);
+                                    if (size == buffer.length) {
+                                        runs.add(writeRun(dir, runs.size(), buffer, size));
+                                        size = 0;
+                                    }
+                                    buffer[size++] = next;
+                                    generated++;
+                                    // a solved state seen before would already be the goal
+                                    if (goal == NO_GOAL && layout.isSolved(next)) {
+                                        goal = next;
+                                        goalDepth = depth + 1;
+                                    }
+                                }
+                            }
+                        }
+                        stats.addExpansionTime(expandStart);
+                    }
+                }
+                if (size > 0)
+                    runs.add(writeRun(dir, runs.size(), buffer, size));
+                stats.addGenerated(generated);
+                if (goal != NO_GOAL && stopAtGoal) {
+                    deleteAll(runs);
+                    break;
+                }
+
+                // merge runs into the next layer, w/o the states of the last two
+                while (runs.size() > fanIn) {
+                    List<Path> group = new ArrayList<Path>(runs.subList(0, fanIn));
+                    Path merged = dir.resolve("run-merged-" + depth + "-" + runs.size());
+                    merge(group, merged, new ArrayList<Path>());
+                    deleteAll(group);
+                    runs.subList(0, fanIn).clear();
+                    runs.add(merged);
+                }
+                List<Path> known = new ArrayList<Path>();
+                known.add(layers.get(depth));
+                if (depth > 0)
+                    known.add(layers.get(depth - 1));
+                Path nextLayer = dir.resolve("layer-" + (depth + 1));
+                long count = merge(runs, nextLayer, known);
+                deleteAll(runs);
+                stats.addDuplicates(generated - count);
+                if (count == 0) {
+                    Files.delete(nextLayer);
+                    break;
+                }
+
+                depth++;
+                layers.add(nextLayer);
+                visited += count;
+                stats.recordLayer(depth, (int) Math.min(count, Integer.MAX_VALUE));
+                stats.updatePeaks((int) Math.min(count, Integer.MAX_VALUE),
+                        (int) Math.min(visited, Integer.MAX_VALUE));
+                // past the goal, old layers are no longer needed for its path
+                if (goal != NO_GOAL && depth - 2 >= goalDepth)
+                    Files.deleteIfExists(layers.get(depth - 2));
+            }
+
+            if (goal == NO_GOAL) {
+                stats.stop();
+                return new SearchResult(null, null, stats, getName());
+            }
+            int[] moves = tracePath(board, cars, layers, goal, goalDepth);
+            stats.stop();
+            Board finalBoard = new Board(start);
+            for (int m : moves)
+                finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+            return new SearchResult(finalBoard, moves, stats, getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("external BFS failed in " + tempDir, e);
+        } finally {
+            if (dir != null)
+                deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * rebuild the moves to the goal, one layer back at a time
+     * @param board: scratch board
+     * @param cars: cars whose moves the search tried
+     * @param layers: layer files, at least up to goalDepth - 1
+     * @return packed moves from start to goal
+     */
+    private int[] tracePath(Board board, int[] cars, List<Path> layers, long goal, int goalDepth)
+            throws IOException {
+        int[] moves = new int[goalDepth];
+        long state = goal;
+        for (int depth = goalDepth - 1; depth >= 0; depth--) {
+            // every neighbor of state, w/ the move from it back to state
+            LongIntMap neighbors = new LongIntMap(64);
+            board.loadState(state);
+            for (int c : cars) {
+                for (int d = Board.BACKWARD; d <= Board.FORWARD; d += 2) {
+                    int limit = metric.maxDistance(board, c, d);
+                    for (int k = 1; k <= limit; k++)
+                        neighbors.put(board.getStateAfterMove(c, d, k), Move.encode(c, -d, k));
+                }
+            }
+            long parent = NO_GOAL;
+            try (StateReader in = new StateReader(layers.get(depth), ioBuffer)) {
+                while (in.hasNext() && parent == NO_GOAL) {
+                    long s = in.next();
+                    if (neighbors.containsKey(s))
+                        parent = s;
+                }
+            }
+            if (parent == NO_GOAL)
+                throw new IllegalStateException("no parent of a depth " + (depth + 1) + " state in layer " + depth);
+            moves[depth] = neighbors.get(parent, Move.NONE);
+            state = parent;
+        }
+        return moves;
+    }
+
+    /**
+     * sort a buffer of states and write the distinct ones as a run
+     * @return path of the run
+     */
+    private Path writeRun(Path dir, int index, long[] buffer, int size) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path run = dir.resolve("run-" + index);
+        try (StateWriter out = new StateWriter(run, ioBuffer)) {
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1])
+                    out.write(buffer[i]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * merge sorted files into one sorted file of distinct states
+     * @param inputs: sorted files to merge
+     * @param output: file to write
+     * @param known: sorted files whose states are left out
+     * @return states written
+     */
+    private long merge(List<Path> inputs, Path output, List<Path> known) throws IOException {
+        PriorityQueue<StateReader> heads = new PriorityQueue<StateReader>(
+                Math.max(1, inputs.size()), (a, b) -> Long.compare(a.peek(), b.peek()));
+        List<StateReader> open = new ArrayList<StateReader>();
+        try (StateWriter out = new StateWriter(output, ioBuffer)) {
+            for (Path p : inputs) {
+                StateReader r = new StateReader(p, ioBuffer);
+                open.add(r);
+                if (r.hasNext())
+                    heads.add(r);
+            }
+            StateReader[] skip = new StateReader[known.size()];
+            for (int i = 0; i < skip.length; i++) {
+                skip[i] = new StateReader(known.get(i), ioBuffer);
+                open.add(skip[i]);
+            }
+
+            boolean any = false;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                StateReader r = heads.poll();
+                long s = r.next();
+                if (r.hasNext())
+                    heads.add(r);
+                if (any && s == last)
+                    continue;
+                any = true;
+                last = s;
+                boolean seen = false;
+                for (StateReader k : skip) {
+                    while (k.hasNext() && k.peek() < s)
+                        k.next();
+                    seen |= k.hasNext() && k.peek() == s;
+                }
+                if (!seen)
+                    out.write(s);
+            }
+            return out.getCount();
+        } finally {
+            for (StateReader r : open)
+                r.close();
+        }
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path p : files)
+            Files.deleteIfExists(p);
+    }
+
+    /**
+     * remove a search's directory, leaving nothing behind even on failure
+     */
+    private static void deleteDirectory(Path dir) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path p : files)
+                Files.deleteIfExists(p);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            System.out.println("could not remove " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * reads a file of states front to back through a direct buffer
+     */
+    private static class StateReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        StateReader(Path file, int bufferBytes) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+            buffer.flip();
+            fill();
+        }
+
+        boolean hasNext() { return buffer.remaining() >= 8; }
+        long peek() { return buffer.getLong(buffer.position()); }
+
+        long next() throws IOException {
+            long s = buffer.getLong();
+            if (buffer.remaining() < 8)
+                fill();
+            return s;
+        }
+
+        private void fill() throws IOException {
+            buffer.compact();
+            while (buffer.hasRemaining() && channel.read(buffer) > 0)
+                ;
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * writes states to a new file through a direct buffer
+     */
+    private static class StateWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long count = 0;
+
+        StateWriter(Path file, int bufferBytes) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+        }
+
+        long getCount() { return count; }
+
+        void write(long state) throws IOException {
+            if (buffer.remaining() < 8)
+                flush();
+            buffer.putLong(state);
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "external-bfs" + metric.suffix(); }
+
+    /**
+     * solve a puzzle, or w/ -all count every board reachable from it
+     * by depth, keeping the layers on disk
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: ExternalBfsStrategy <puzzle file> [step|slide] [-ram MB] [-tmp dir] [-all]");
+            return;
+        }
+        MoveMetric metric = MoveMetric.STEP;
+        long ram = DEFAULT_RAM_BYTES;
+        Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        boolean all = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-ram") && i + 1 < args.length)
+                ram = Long.parseLong(args[++i]) << 20;
+            else if (args[i].equals("-tmp") && i + 1 < args.length)
+                tmp = Paths.get(args[++i]);
+            else if (args[i].equals("-all"))
+                all = true;
+            else
+                metric = MoveMetric.valueOf(args[i].toUpperCase());
+        }
+
+        ExternalBfsStrategy strategy = new ExternalBfsStrategy(metric, tmp, ram);
+        Board start = new Board(args[0]);
+        SearchResult result = all ? strategy.explore(start, SearchBudget.UNLIMITED)
+                : strategy.search(start, SearchBudget.UNLIMITED);
+        if (all) {
+            int[] layers = result.getStats().getLayerSizes();
+            for (int d = 0; d < layers.length; d++)
+                System.out.println(d + " " + layers[d]);
+        }
+        System.out.println(result.getStatus() + (result.isSolved() ? " in " + result.getMoveCount() + " moves" : "")
+                + ", " + result.getStats());
+    }
+}
@@ -0,0 +1,107 @@
+package rushhour;
+
+/**
+ * immutable shape of a board: rows, columns, wall cells and the edge
+ * xCar leaves by. every state of a puzzle shares one geometry through
+ * its CarLayout
+ *
+ * cells are numbered row-major (row * cols + col), so any board of up to
+ * 64 cells keeps its occupancy in one long and moves stay a mask xor, the
+ * same as on a standard board. a lane holds at most POS_MASK + 2 cells, so
+ * the top/left of a car of length 2 or more still fits in
+ * CarLayout.POS_BITS and a whole state in one long
+ */
+public final class Geometry {
+    // most cells a board can have, one bit each in a long
+    public static final int MAX_CELLS = 64;
+    // longest lane, the last position of a 2 cell car must fit in POS_BITS
+    public static final int MAX_LANE = (int) CarLayout.POS_MASK + 2;
+
+    // 6x6, no walls, exit on the right
+    public static final Geometry STANDARD = new Geometry(Board.SIZE, Board.SIZE, 0, Board.FORWARD);
+
+    private final int rows;
+    private final int cols;
+    private final long walls;       // bitmask of cells no car can cover
+    private final int exitDir;      // FORWARD: exit on the right edge, BACKWARD: on the left
+
+    /**
+     * constructor
+     * @param rows
+     * @param cols
+     * @param walls: bitmask of wall cells, see cellBit()
+     * @param exitDir: Board.FORWARD to leave by the right edge of xCar's row, Board.BACKWARD by the left
+     * @throws IllegalArgumentException if the board does not fit the packed encodings
+     */
+    public Geometry(int rows, int cols, long walls, int exitDir) {
+        if (rows < 1 || cols < 2)
+            throw new IllegalArgumentException("board too small: " + rows + "x" + cols);
+        if (rows > MAX_LANE || cols > MAX_LANE)
+            throw new IllegalArgumentException("board side longer than " + MAX_LANE + ": " + rows + "x" + cols);
+        if (rows * cols > MAX_CELLS)
+            throw new IllegalArgumentException("board has more than " + MAX_CELLS + " cells: " + rows + "x" + cols);
+        if (exitDir != Board.FORWARD && exitDir != Board.BACKWARD)
+            throw new IllegalArgumentException("bad exit direction: " + exitDir);
+        if (rows * cols < MAX_CELLS && (walls >>> (rows * cols)) != 0)
+            throw new IllegalArgumentException("wall outside the board");
+        this.rows = rows;
+        this.cols = cols;
+        this.walls = walls;
+        this.exitDir = exitDir;
+    }
+
+    // getters
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public long getWalls() { return walls; }
+    public int getExitDir() { return exitDir; }
+
+    /**
+     * bit of a single cell
+     * @param row
+     * @param col
+     * @return mask with only that cell set
+     */
+    public long cellBit(int row, int col) {
+        return 1L << (row * cols + col);
+    }
+
+    /**
+     * check if a cell is a wall
+     */
+    public boolean isWall(int row, int col) {
+        return (walls & cellBit(row, col)) != 0;
+    }
+
+    /**
+     * cells along a lane: columns for a horizontal car, rows for a vertical one
+     * @param dir: Car.HORI or Car.VERT
+     */
+    public int getLaneLength(int dir) {
+        return (dir == Car.HORI) ? cols : rows;
+    }
+
+    /**
+     * short description, e.g. "7x7 exit left, 2 walls"
+     */
+    @Override
+    public String toString() {
+        return rows + "x" + cols + ((exitDir == Board.FORWARD) ? " exit right" : " exit left")
+                + ((walls == 0) ? "" : ", " + Long.bitCount(walls) + " walls");
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Geometry))
+            return false;
+        Geometry g = (Geometry) other;
+        return rows == g.rows && cols == g.cols && walls == g.walls && exitDir == g.exitDir;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (walls ^ (walls >>> 32)) * 31 + (rows << 16 | cols << 8 | (exitDir & 0xFF));
+    }
+}
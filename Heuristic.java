@@ -0,0 +1,39 @@
+package rushhour;
+
+/**
+ * estimate of moves left to solve a board
+ * for A* to return shortest solutions, an estimate must never be
+ * more than the true number of moves left (admissible)
+ */
+public interface Heuristic {
+    /**
+     * @param board
+     * @return lower bound on moves left, 0 for a solved board
+     */
+    int estimate(Board board);
+
+    /**
+     * estimate for a board one move after a board that was already estimated
+     * heuristics that can update their estimate from the move alone
+     * override this, the default evaluates child from scratch
+     * @param parent: board before the move
+     * @param parentEstimate: estimate(parent)
+     * @param child: parent w/ the move made
+     * @param move: packed Move that was made
+     * @return estimate(child)
+     */
+    default int estimateAfterMove(Board parent, int parentEstimate, Board child, int move) {
+        return estimate(child);
+    }
+
+    /**
+     * move metric the estimate is a lower bound in
+     * a bound on single steps is not admissible when whole slides count as one move
+     */
+    default MoveMetric getMetric() { return MoveMetric.STEP; }
+
+    /**
+     * @return short name used in output
+     */
+    String getName();
+}
@@ -0,0 +1,300 @@
+package rushhour;
+
+/**
+ * iterative deepening A*: depth first searches bounded by moves made plus
+ * an admissible estimate, the bound rising to the smallest value that was
+ * cut off until a solution fits. each search works on one board, making
+ * and taking back moves in place, so memory is the move stack plus a
+ * transposition table whose size is set up front, not by the puzzle
+ *
+ * the table is indexed by zobrist key into buckets of WAYS slots, each
+ * holding a state stamped w/ the iteration and the fewest moves it was
+ * reached in. a state reached again in the same iteration w/ no fewer
+ * moves is cut, since the earlier visit searched everything this one
+ * could. a new state always goes in, replacing a slot left from an
+ * earlier iteration or else the one reached in the most moves, whose
+ * subtree is cheapest to search again;
+ * a lost entry only costs repeated work, never a longer solution
+ *
+ * a depth first search never runs out of boards, so unsolvable puzzles
+ * are proven another way: once an iteration keeps every state it reached
+ * in the table and reaches no state the last one didn't, the table is
+ * checked for a move leading out of it. if there is none, it holds every
+ * board reachable from the start
+ */
+public class IdaStarStrategy implements SearchStrategy {
+    // table size if none is given
+    public static final long DEFAULT_TABLE_BYTES = 16L << 20;
+    // bytes per table slot: packed state and stamp
+    public static final int ENTRY_BYTES = 12;
+
+    // slots per bucket; w/ fewer, a few states sharing one bucket would
+    // keep evicting each other and no iteration could prove a puzzle unsolvable
+    private static final int WAYS = 4;
+
+    // dfs() results that are not a cut-off bound
+    private static final int FOUND = -1;
+    private static final int STOPPED = -2;
+    private static final int MAX_G = 0xFFFF;
+
+    private final Heuristic heuristic;
+    private final MoveMetric metric;
+    private final int tableSlots;       // power of 2
+    private final int maxMoves;         // longest solution searched for
+
+    /**
+     * constructor w/ the default table size
+     * @param heuristic: admissible lower bound on moves left, also picks the move metric
+     */
+    public IdaStarStrategy(Heuristic heuristic) {
+        this(heuristic, DEFAULT_TABLE_BYTES);
+    }
+
+    /**
+     * constructor
+     * @param heuristic: admissible lower bound on moves left, also picks the move metric
+     * @param tableBytes: memory for the transposition table, rounded down to a power of 2 slots
+     */
+    public IdaStarStrategy(Heuristic heuristic, long tableBytes) {
+        this(heuristic, tableBytes, MAX_G);
+    }
+
+    /**
+     * constructor w/ a cap on solution length
+     * @param heuristic: admissible lower bound on moves left, also picks the move metric
+     * @param tableBytes: memory for the transposition table, rounded down to a power of 2 slots
+     * @param maxMoves: longest solution to look for, at most 65535 (the moves a table stamp holds);
+     *     a search that would have to go deeper ends w/ DEPTH_LIMIT
+     */
+    public IdaStarStrategy(Heuristic heuristic, long tableBytes, int maxMoves) {
+        if (tableBytes < 16 * ENTRY_BYTES)
+            throw new IllegalArgumentException("transposition table too small: " + tableBytes + " bytes");
+        if (maxMoves < 0 || maxMoves > MAX_G)
+            throw new IllegalArgumentException("max moves must be in [0, " + MAX_G + "]: " + maxMoves);
+        this.heuristic = heuristic;
+        this.metric = heuristic.getMetric();
+        this.tableSlots = Integer.highestOneBit((int) Math.min(1 << 30, tableBytes / ENTRY_BYTES));
+        this.maxMoves = maxMoves;
+    }
+
+    // getters
+    public Heuristic getHeuristic() { return heuristic; }
+    public long getTableBytes() { return (long) ENTRY_BYTES * tableSlots; }
+    public int getMaxMoves() { return maxMoves; }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        Run run = new Run(start, relevance.getMovableCars(), budget, stats);
+        stats.recordReached(0);
+
+        int bound = heuristic.estimate(start);
+        int lastStored = -1;
+        while (true) {
+            if (bound > maxMoves) {
+                // not a proof there is no solution, only none this short
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(), SearchStatus.DEPTH_LIMIT);
+            }
+            run.iteration++;
+            run.stored = 0;
+            run.evicted = false;
+            if (run.path.length < bound + 1)
+                run.path = new int[bound + 1];
+            int next = run.dfs(0, bound, -1, 0);
+            // the only boards waiting to be expanded are those along the move stack
+            stats.updatePeaks(run.deepest + 1, run.stored);
+
+            if (next == FOUND) {
+                stats.stop();
+                int[] moves = java.util.Arrays.copyOf(run.path, run.solutionLength);
+                Board finalBoard = new Board(start);
+                for (int m : moves)
+                    finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+                return new SearchResult(finalBoard, moves, stats, getName());
+            }
+            if (next == STOPPED) {
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(), run.over);
+            }
+            if (next == Integer.MAX_VALUE
+                    || (!run.evicted && run.stored == lastStored && run.isClosed())) {
+                stats.stop();
+                return new SearchResult(null, null, stats, getName());
+            }
+            lastStored = run.evicted ? -1 : run.stored;
+            bound = next;
+        }
+    }
+
+    /**
+     * state of one search: the board, the table and the move stack
+     */
+    private class Run {
+        private final Board board;
+        private final int[] cars;
+        private final SearchBudget budget;
+        private final SearchStats stats;
+        private final long[] keys;          // packed state in each slot
+        private final int[] stamps;         // iteration << 16 | moves made, 0 if empty
+        private final int mask;
+
+        int[] path = new int[64];           // moves made so far, path[g] leads to depth g + 1
+        int solutionLength;
+        int iteration = 0;
+        int stored;                         // states put in the table this iteration
+        boolean evicted;                    // a state of this iteration was replaced
+        int deepest;                        // most moves on the stack so far
+        SearchStatus over;
+
+        Run(Board start, int[] cars, SearchBudget budget, SearchStats stats) {
+            this.board = new Board(start);
+            this.cars = cars;
+            this.budget = budget;
+            this.stats = stats;
+            this.keys = new long[tableSlots];
+            this.stamps = new int[tableSlots];
+            this.mask = tableSlots - 1;
+        }
+
+        /**
+         * first slot of the bucket for a key
+         */
+        private int slotOf(long zobristKey) {
+            return (int) (zobristKey ^ (zobristKey >>> 32)) & mask & -WAYS;
+        }
+
+        private boolean isCurrent(int slot) {
+            return stamps[slot] >>> 16 == iteration;
+        }
+
+        /**
+         * slot holding state in this iteration
+         * @return slot, or -1 if state is not in the table
+         */
+        private int find(long zobristKey, long state) {
+            int first = slotOf(zobristKey);
+            for (int slot = first; slot < first + WAYS; slot++) {
+                if (keys[slot] == state && isCurrent(slot))
+                    return slot;
+            }
+            return -1;
+        }
+
+        /**
+         * slot for a state not in the table: one left from an earlier
+         * iteration if there is one, else the one reached in the most moves
+         */
+        private int victim(long zobristKey) {
+            int first = slotOf(zobristKey);
+            int victim = first;
+            for (int slot = first; slot < first + WAYS; slot++) {
+                if (!isCurrent(slot))
+                    return slot;
+                if ((stamps[slot] & MAX_G) > (stamps[victim] & MAX_G))
+                    victim = slot;
+            }
+            return victim;
+        }
+
+        /**
+         * search below board, which was reached in g moves
+         * @param bound: largest g + estimate to search
+         * @param lastCar: car moved last, -1 at the start
+         * @param lastDir: direction it moved in
+         * @return FOUND, STOPPED, or the smallest g + estimate above bound
+         */
+        int dfs(int g, int bound, int lastCar, int lastDir) {
+            if (g > deepest)
+                deepest = g;
+            int f = g + heuristic.estimate(board);
+            if (f > bound)
+                return f;
+            if (board.isSolved()) {
+                solutionLength = g;
+                return FOUND;
+            }
+
+            long state = board.getState();
+            int slot = find(board.getZobristKey(), state);
+            if (slot >= 0) {
+                if ((stamps[slot] & MAX_G) <= g) {
+                    stats.recordDuplicate();
+                    return Integer.MAX_VALUE;
+                }
+            } else {
+                slot = victim(board.getZobristKey());
+                if (isCurrent(slot))
+                    evicted = true;
+                stored++;
+            }
+            keys[slot] = state;
+            stamps[slot] = iteration << 16 | g;
+
+            over = budget.check(stats, getTableBytes());
+            if (over != null)
+                return STOPPED;
+            stats.recordExpanded();
+
+            int min = Integer.MAX_VALUE;
+            for (int c : cars) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    // never take back the last move; w/ slides, never move the same car twice in a row
+                    if (c == lastCar && (dir == -lastDir || metric == MoveMetric.SLIDE))
+                        continue;
+                    int limit = metric.maxDistance(board, c, dir);
+                    for (int d = 1; d <= limit; d++) {
+                        stats.recordGenerated();
+                        board.makeMove(c, dir, d);
+                        path[g] = Move.encode(c, dir, d);
+                        int result = dfs(g + 1, bound, c, dir);
+                        board.unmakeMove(c, dir, d);
+                        if (result == FOUND || result == STOPPED)
+                            return result;
+                        min = Math.min(min, result);
+                    }
+                }
+            }
+            return min;
+        }
+
+        /**
+         * check that every move from a state of this iteration leads to
+         * another state of this iteration, i.e. the table holds everything
+         * reachable from the start
+         */
+        boolean isClosed() {
+            Board scratch = new Board(board);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (!isCurrent(slot))
+                    continue;
+                scratch.loadState(keys[slot]);
+                for (int c : cars) {
+                    for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                        int limit = metric.maxDistance(scratch, c, dir);
+                        for (int d = 1; d <= limit; d++) {
+                            scratch.makeMove(c, dir, d);
+                            boolean inside = find(scratch.getZobristKey(), scratch.getState()) >= 0;
+                            scratch.unmakeMove(c, dir, d);
+                            if (!inside)
+                                return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "ida-" + heuristic.getName(); }
+}
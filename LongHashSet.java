@@ -0,0 +1,148 @@
+package rushhour;
+
+/**
+ * set of longs using open addressing w/ linear probing
+ * keys are stored as primitives, so there is no boxing per entry
+ * and two different keys are never treated as equal
+ */
+public class LongHashSet {
+    public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    public static final int DEFAULT_EXPECTED = 1024;
+
+    private long[] keys;
+    private boolean hasZero;    // 0 marks an empty slot, so key 0 is tracked separately
+    private int size;
+    private int mask;           // keys.length - 1, table length is a power of 2
+    private int maxFill;        // size at which the table grows
+    private final float loadFactor;
+
+    /**
+     * default constructor
+     */
+    public LongHashSet() {
+        this(DEFAULT_EXPECTED, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * constructor pre-sized for a number of keys
+     * @param expected: keys that can be added before the table grows
+     */
+    public LongHashSet(int expected) {
+        this(expected, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * constructor w/ custom sizing
+     * @param expected: keys that can be added before the table grows
+     * @param loadFactor: fraction of slots filled before growing, in (0, 1)
+     */
+    public LongHashSet(int expected, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1)
+            throw new IllegalArgumentException("load factor must be in (0, 1): " + loadFactor);
+        if (expected < 0)
+            throw new IllegalArgumentException("expected size must be positive: " + expected);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((long) Math.ceil(Math.max(expected, 2) / (double) loadFactor)));
+    }
+
+    // getters
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int capacity() { return keys.length; }
+    public long getMemoryBytes() { return 8L * keys.length; }
+
+    /**
+     * check if key is in set
+     * @param key
+     * @return true if present
+     */
+    public boolean contains(long key) {
+        if (key == 0)
+            return hasZero;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * add key to set
+     * @param key
+     * @return true if key was new, false if already present
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size >= maxFill)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * remove every key, keeping the current capacity
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * spreads bits of a key so nearby keys land in different slots
+     * (finalizer of murmur3)
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * smallest power of 2 holding n slots
+     */
+    private static int tableSizeFor(long n) {
+        if (n > (1 << 30))
+            throw new IllegalArgumentException("set too large: " + n);
+        return (int) Math.max(4, Long.highestOneBit(n - 1) << 1);
+    }
+
+    private void allocate(int length) {
+        keys = new long[length];
+        mask = length - 1;
+        maxFill = Math.min(length - 1, (int) Math.ceil(length * loadFactor));
+    }
+
+    /**
+     * moves every key into a table of a new length
+     */
+    private void rehash(int length) {
+        long[] oldKeys = keys;
+        allocate(length);
+        for (long key : oldKeys) {
+            if (key == 0)
+                continue;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+    }
+}
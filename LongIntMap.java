@@ -0,0 +1,156 @@
+package rushhour;
+
+/**
+ * map from long keys to int values using open addressing w/ linear probing
+ * same layout as LongHashSet, w/ a parallel array of values
+ */
+public class LongIntMap {
+    private long[] keys;
+    private int[] values;
+    private boolean hasZero;    // 0 marks an empty slot, so key 0 is tracked separately
+    private int zeroValue;
+    private int size;
+    private int mask;
+    private int maxFill;
+    private final float loadFactor;
+
+    /**
+     * default constructor
+     */
+    public LongIntMap() {
+        this(LongHashSet.DEFAULT_EXPECTED, LongHashSet.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * constructor pre-sized for a number of keys
+     * @param expected: keys that can be added before the table grows
+     */
+    public LongIntMap(int expected) {
+        this(expected, LongHashSet.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * constructor w/ custom sizing
+     * @param expected: keys that can be added before the table grows
+     * @param loadFactor: fraction of slots filled before growing, in (0, 1)
+     */
+    public LongIntMap(int expected, float loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1)
+            throw new IllegalArgumentException("load factor must be in (0, 1): " + loadFactor);
+        if (expected < 0)
+            throw new IllegalArgumentException("expected size must be positive: " + expected);
+        this.loadFactor = loadFactor;
+        long slots = (long) Math.ceil(Math.max(expected, 2) / (double) loadFactor);
+        if (slots > (1 << 30))
+            throw new IllegalArgumentException("map too large: " + expected);
+        allocate((int) Math.max(4, Long.highestOneBit(slots - 1) << 1));
+    }
+
+    // getters
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int capacity() { return keys.length; }
+    public long getMemoryBytes() { return 12L * keys.length; }
+
+    /**
+     * check if key is in map
+     */
+    public boolean containsKey(long key) {
+        if (key == 0)
+            return hasZero;
+        return keys[find(key)] == key;
+    }
+
+    /**
+     * value stored for key
+     * @param key
+     * @param missing: returned if key is not in map
+     * @return stored value, otherwise missing
+     */
+    public int get(long key, int missing) {
+        if (key == 0)
+            return hasZero ? zeroValue : missing;
+        int slot = find(key);
+        return (keys[slot] == key) ? values[slot] : missing;
+    }
+
+    /**
+     * store value for key, replacing any old value
+     * @param key
+     * @param value
+     * @return true if key was new
+     */
+    public boolean put(long key, int value) {
+        if (key == 0) {
+            zeroValue = value;
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int slot = find(key);
+        values[slot] = value;
+        if (keys[slot] == key)
+            return false;
+        keys[slot] = key;
+        if (++size >= maxFill)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    /**
+     * remove every key, keeping the current capacity
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * slot holding key, or the empty slot where it would go
+     */
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * spreads bits of a key so nearby keys land in different slots
+     * (finalizer of murmur3)
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void allocate(int length) {
+        keys = new long[length];
+        values = new int[length];
+        mask = length - 1;
+        maxFill = Math.min(length - 1, (int) Math.ceil(length * loadFactor));
+    }
+
+    /**
+     * moves every entry into a table of a new length
+     */
+    private void rehash(int length) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0)
+                continue;
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
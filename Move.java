@@ -0,0 +1,50 @@
+package rushhour;
+
+/**
+ * moves packed into a single int, so searches store no objects per move
+ * bits 0-7: car index in the layout
+ * bit 8: 1 if forward (right/down), 0 if backward (left/up)
+ * bits 9-: number of squares moved
+ */
+public final class Move {
+    // no move, e.g. for the root of a search
+    public static final int NONE = -1;
+
+    private static final int CAR_MASK = 0xFF;
+    private static final int DIR_SHIFT = 8;
+    private static final int DIST_SHIFT = 9;
+
+    private Move() {}
+
+    /**
+     * @param car: index of car in layout
+     * @param dir: backward or forward (-/+ 1)
+     * @param distance: squares moved, at least 1
+     * @return packed move
+     */
+    public static int encode(int car, int dir, int distance) {
+        int forward = (dir == Board.FORWARD) ? 1 : 0;
+        return car | (forward << DIR_SHIFT) | (distance << DIST_SHIFT);
+    }
+
+    // getters
+    public static int getCar(int move) { return move & CAR_MASK; }
+    public static int getDir(int move) { return ((move >>> DIR_SHIFT) & 1) == 1 ? Board.FORWARD : Board.BACKWARD; }
+    public static int getDistance(int move) { return move >>> DIST_SHIFT; }
+
+    /**
+     * move in output notation, e.g. XR1 (X car go right 1)
+     * @param layout: cars the move's index refers to
+     * @param move: packed move
+     * @return formatted move
+     */
+    public static String format(CarLayout layout, int move) {
+        int car = getCar(move);
+        char letter;
+        if (layout.getDir(car) == Car.HORI)
+            letter = (getDir(move) == Board.FORWARD) ? 'R' : 'L';
+        else
+            letter = (getDir(move) == Board.FORWARD) ? 'D' : 'U';
+        return "" + layout.getName(car) + letter + getDistance(move);
+    }
+}
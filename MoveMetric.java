@@ -0,0 +1,33 @@
+package rushhour;
+
+/**
+ * what counts as one move when measuring solution length
+ * STEP: a car moves one square (output like XR1 XR1 XR1)
+ * SLIDE: a car slides any free distance in one move (output like XR3),
+ *        the usual way Rush Hour solutions are counted
+ */
+public enum MoveMetric {
+    STEP,
+    SLIDE;
+
+    /**
+     * farthest a car can go in one move in this metric
+     * searches try every distance from 1 up to this
+     * @param board
+     * @param index: car we want to move
+     * @param dir: backward or forward (-/+ 1)
+     * @return squares, 0 if the car cannot move that way
+     */
+    public int maxDistance(Board board, int index, int dir) {
+        if (this == STEP)
+            return board.canMove(index, dir) ? 1 : 0;
+        return board.getSlideLimit(index, dir);
+    }
+
+    /**
+     * added to strategy and heuristic names, empty for STEP
+     */
+    public String suffix() {
+        return (this == STEP) ? "" : "-slide";
+    }
+}
@@ -0,0 +1,229 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * level-synchronous breadth first search across a ForkJoinPool
+ * each depth layer is a flat array of packed states, split into chunks
+ * that threads expand into their own buffers; the buffers are joined into
+ * the next layer once the whole layer is done, so the first layer holding
+ * a solved state gives a shortest solution
+ *
+ * the visited set is a StripedStateMap from each state to the move that
+ * first reached it, so the path is rebuilt by undoing moves from the goal
+ *
+ * a budget is checked between layers; a layer that would expand more
+ * boards than the node limit allows is not started, and chunks started
+ * after the deadline are skipped, so an over-time layer ends quickly
+ */
+public class ParallelBfsStrategy implements SearchStrategy {
+    // states expanded by one task, smaller layers use a single task
+    private static final int CHUNK = 1024;
+    // no solved state found yet
+    private static final long NO_GOAL = -1;
+
+    private final ForkJoinPool pool;
+    private final MoveMetric metric;
+
+    /**
+     * constructor using the common pool and single step moves
+     */
+    public ParallelBfsStrategy() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * constructor for single step moves
+     * @param pool: threads to expand layers on
+     */
+    public ParallelBfsStrategy(ForkJoinPool pool) {
+        this(pool, MoveMetric.STEP);
+    }
+
+    /**
+     * constructor
+     * @param pool: threads to expand layers on
+     * @param metric: what counts as one move
+     */
+    public ParallelBfsStrategy(ForkJoinPool pool, MoveMetric metric) {
+        this.pool = pool;
+        this.metric = metric;
+    }
+
+    /**
+     * expands one chunk of a layer into its own output buffer
+     */
+    private static class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;          // scratch board, reloaded for each state
+        private final long[] layer;
+        private final int from;
+        private final int to;
+        private final StripedStateMap seen;
+        private final MoveMetric metric;
+        private final int[] cars;           // cars whose moves are tried
+        private final long deadline;        // System.nanoTime() to stop at, Long.MAX_VALUE if none
+        private final SearchBudget budget;  // checked for cancellation before starting
+
+        long[] found = new long[64];        // new states, part of the next layer
+        int foundSize = 0;
+        long generated = 0;
+        long duplicates = 0;
+        long goal = NO_GOAL;
+        boolean skipped = false;            // started after the deadline or a cancel, nothing expanded
+
+        ExpandTask(Board start, long[] layer, int from, int to, StripedStateMap seen, MoveMetric metric,
+                int[] cars, long deadline, SearchBudget budget) {
+            this.board = new Board(start);
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+            this.seen = seen;
+            this.metric = metric;
+            this.cars = cars;
+            this.deadline = deadline;
+            this.budget = budget;
+        }
+
+        @Override
+        protected void compute() {
+            if ((deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) || budget.isCancelled()) {
+                skipped = true;
+                return;
+            }
+            CarLayout layout = board.getLayout();
+            for (int i = from; i < to; i++) {
+                board.loadState(layer[i]);
+                for (int c : cars) {
+                    for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                        int limit = metric.maxDistance(board, c, dir);
+                        for (int d = 1; d <= limit; d++) {
+                            generated++;
+                            long next = board.getStateAfterMove(c, dir, d);
+                            if (!seen.putIfAbsent(next, Move.encode(c, dir, d))) {
+                                duplicates++;
+                                continue;
+                            }
+                            if (foundSize == found.length)
+                                found = Arrays.copyOf(found, foundSize * 2);
+                            found[foundSize++] = next;
+                            if (layout.isSolved(next))
+                                goal = next;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        SearchStats stats = new SearchStats();
+        stats.start();
+        CarLayout layout = start.getLayout();
+        Relevance relevance = Relevance.analyze(start);
+        if (relevance.isTriviallyUnsolvable() && !start.isSolved()) {
+            stats.stop();
+            return new SearchResult(null, null, stats, getName());
+        }
+        int[] cars = relevance.getMovableCars();
+        int stripes = 4 * pool.getParallelism();
+        StripedStateMap seen = new StripedStateMap(stripes, LongHashSet.DEFAULT_EXPECTED * 16);
+        seen.putIfAbsent(start.getState(), Move.NONE);
+        stats.recordReached(0);
+
+        long goal = layout.isSolved(start.getState()) ? start.getState() : NO_GOAL;
+        long[] layer = { start.getState() };
+        int depth = 0;
+        long deadline = budget.deadline(stats.getStartNanos());
+
+        while (goal == NO_GOAL && layer.length > 0) {
+            SearchStatus over = budget.check(stats, seen.getMemoryBytes());
+            if (over == null && stats.getNodesExpanded() + layer.length > budget.getMaxExpanded())
+                over = SearchStatus.NODE_LIMIT;
+            if (over != null) {
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(), over);
+            }
+
+            // split layer into chunks, expand them all on the pool
+            List<ExpandTask> tasks = new ArrayList<ExpandTask>();
+            for (int from = 0; from < layer.length; from += CHUNK)
+                tasks.add(new ExpandTask(start, layer, from, Math.min(layer.length, from + CHUNK), seen, metric,
+                        cars, deadline, budget));
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+
+            // join per-task buffers into the next layer
+            int nextSize = 0;
+            boolean skipped = false;
+            for (ExpandTask t : tasks) {
+                nextSize += t.foundSize;
+                skipped |= t.skipped;
+            }
+            long[] next = new long[nextSize];
+            int at = 0;
+            for (ExpandTask t : tasks) {
+                System.arraycopy(t.found, 0, next, at, t.foundSize);
+                at += t.foundSize;
+                stats.addGenerated(t.generated);
+                stats.addDuplicates(t.duplicates);
+                if (t.goal != NO_GOAL)
+                    goal = t.goal;
+            }
+            if (skipped && goal == NO_GOAL) {
+                // layer is incomplete, so the next one would be wrong
+                stats.stop();
+                return SearchResult.overBudget(stats, getName(),
+                        budget.isCancelled() ? SearchStatus.CANCELLED : SearchStatus.TIME_LIMIT);
+            }
+            stats.addExpanded(layer.length);
+            depth++;
+            if (nextSize > 0)
+                stats.recordLayer(depth, nextSize);
+            stats.updatePeaks(nextSize, seen.size());
+            layer = next;
+        }
+
+        stats.stop();
+        if (goal == NO_GOAL)
+            return new SearchResult(null, null, stats, getName());
+
+        // walk back from goal, undoing the move that first reached each state
+        int[] moves = new int[depth];
+        int count = 0;
+        long state = goal;
+        int move;
+        while ((move = seen.get(state, Move.NONE)) != Move.NONE) {
+            moves[count++] = move;
+            state = CarLayout.applyMove(state, Move.getCar(move), -Move.getDir(move) * Move.getDistance(move));
+        }
+        moves = Arrays.copyOf(moves, count);
+        for (int i = 0; i < count / 2; i++) {
+            int tmp = moves[i];
+            moves[i] = moves[count - 1 - i];
+            moves[count - 1 - i] = tmp;
+        }
+
+        Board finalBoard = new Board(start);
+        for (int m : moves)
+            finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+        return new SearchResult(finalBoard, moves, stats, getName());
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "parallel-bfs" + metric.suffix(); }
+}
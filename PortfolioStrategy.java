@@ -0,0 +1,172 @@
+package rushhour;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * races several strategies on the same board and keeps the first answer
+ *
+ * which search is fastest depends on the puzzle: plain BFS wins on
+ * shallow boards, A* or bidirectional search on deep ones, and there is
+ * no telling which in advance. every member gets its own thread and the
+ * same budget plus a shared cancel flag; the first to prove a result
+ * (SOLVED or UNSOLVABLE) wins, and setting the flag stops the others at
+ * their next budget check, so their visited sets are let go of within
+ * about one expansion instead of at the end of their own search
+ *
+ * members must all return shortest solutions in the same MoveMetric
+ * (checked by the constructor), e.g. BFS, A* w/ an admissible heuristic, bidirectional BFS or IDA*, so
+ * whichever wins the answer is the same length. every member runs on the
+ * pool and search() returns as soon as one wins, w/o waiting for the
+ * others to see the flag; a board takes up to one core per member
+ *
+ * wins are counted per member, see getWins(), and the result carries the
+ * winner's name and stats, so SolveEvents show which member won each puzzle
+ */
+public class PortfolioStrategy implements SearchStrategy {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    // daemon threads shared by every portfolio w/o a pool of its own,
+    // started as needed and dropped after a minute idle
+    private static final ExecutorService SHARED_POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "portfolio-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final SearchStrategy[] strategies;
+    private final ExecutorService pool;
+    private final AtomicLongArray wins;     // puzzles each member finished first
+
+    /**
+     * constructor w/ the pool of daemon threads shared by all portfolios
+     * @param strategies: members, at least one, all counting moves in the same MoveMetric
+     */
+    public PortfolioStrategy(SearchStrategy... strategies) {
+        this(SHARED_POOL, strategies);
+    }
+
+    /**
+     * constructor
+     * @param pool: runs the members, needs a free thread for each or members wait their turn; not shut down here
+     * @param strategies: members, at least one, all counting moves in the same MoveMetric
+     */
+    public PortfolioStrategy(ExecutorService pool, SearchStrategy... strategies) {
+        if (strategies.length == 0)
+            throw new IllegalArgumentException("portfolio needs at least one strategy");
+        for (SearchStrategy strategy : strategies) {
+            if (strategy.getMetric() != strategies[0].getMetric())
+                throw new IllegalArgumentException(strategy.getName() + " counts moves in " + strategy.getMetric()
+                        + ", " + strategies[0].getName() + " in " + strategies[0].getMetric());
+        }
+        this.strategies = strategies.clone();
+        this.pool = pool;
+        this.wins = new AtomicLongArray(strategies.length);
+    }
+
+    // getters
+    public int getNumStrategies() { return strategies.length; }
+    public SearchStrategy getStrategy(int i) { return strategies[i]; }
+    public long getWins(int i) { return wins.get(i); }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        Race race = new Race(budget);
+        for (int i = 0; i < strategies.length; i++) {
+            int member = i;
+            try {
+                pool.execute(() -> race.run(member, start));
+            } catch (RejectedExecutionException e) {
+                race.finish(member, null, e);
+            }
+        }
+        return race.await();
+    }
+
+    /**
+     * one board raced by every member
+     */
+    private class Race {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final SearchBudget budget;
+        private final SearchResult[] results;   // null until a member returns
+        private RuntimeException failure;       // first member that threw, if any
+        private int finished = 0;
+        private int winner = -1;
+
+        Race(SearchBudget budget) {
+            this.budget = budget.withCancellation(cancelled);
+            this.results = new SearchResult[strategies.length];
+        }
+
+        /**
+         * search w/ one member, then report back
+         * a member that throws only drops out of the race
+         */
+        void run(int member, Board start) {
+            SearchResult result = null;
+            RuntimeException error = null;
+            try {
+                // skip the search if it was decided before this member got a thread
+                if (!cancelled.get())
+                    result = strategies[member].search(start, budget);
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (OutOfMemoryError e) {
+                error = new IllegalStateException(strategies[member].getName() + " ran out of memory", e);
+            }
+            finish(member, result, error);
+        }
+
+        synchronized void finish(int member, SearchResult result, RuntimeException error) {
+            results[member] = result;
+            if (error != null && failure == null)
+                failure = error;
+            boolean proven = result != null && !result.getStatus().isBudgetExceeded();
+            if (proven && winner < 0) {
+                winner = member;
+                cancelled.set(true);
+                wins.incrementAndGet(member);
+            }
+            finished++;
+            notifyAll();
+        }
+
+        /**
+         * wait for a winner, or for every member to give up
+         * members still searching when one wins are left to stop on their own
+         * @return the winner's result, else the first member's that gave up
+         */
+        synchronized SearchResult await() {
+            try {
+                while (winner < 0 && finished < strategies.length)
+                    wait();
+            } catch (InterruptedException e) {
+                cancelled.set(true);
+                Thread.currentThread().interrupt();
+                return SearchResult.overBudget(new SearchStats(), getName(), SearchStatus.CANCELLED);
+            }
+            if (winner >= 0)
+                return results[winner];
+            for (SearchResult result : results) {
+                if (result != null)
+                    return result;
+            }
+            throw failure;
+        }
+    }
+
+    @Override
+    public MoveMetric getMetric() { return strategies[0].getMetric(); }
+
+    @Override
+    public String getName() {
+        StringBuilder name = new StringBuilder("portfolio(");
+        for (int i = 0; i < strategies.length; i++)
+            name.append((i == 0) ? "" : ",").append(strategies[i].getName());
+        return name.append(')').toString();
+    }
+}
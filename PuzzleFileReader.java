@@ -0,0 +1,199 @@
+package rushhour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * reads many puzzles from one large file, one puzzle per line:
+ * SIZE * SIZE cells in row-major order, '.' for empty, e.g.
+ *   AAB.CCDDB..OPXX.EOPQQQEOPF.GHHPF.GII
+ * anything after the cells and a space or tab is ignored, and blank
+ * lines and lines starting w/ '#' are skipped
+ *
+ * the file is memory-mapped a window at a time and each record is parsed
+ * from the mapped bytes into a reused grid, so no String is built per
+ * puzzle. puzzles are parsed one at a time as next() is called, so
+ * solving can start before the file has been read
+ */
+public class PuzzleFileReader implements Iterator<Board>, Closeable {
+    // bytes mapped at once, records never span two windows
+    private static final int WINDOW = 64 << 20;
+    private static final int CELLS = Board.SIZE * Board.SIZE;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int window;
+    private MappedByteBuffer buffer;
+    private long bufferStart;           // file offset of buffer position 0
+    private long lineNumber;            // line of the next record
+    private long recordLine;            // line of the record last returned
+    private boolean ready;              // buffer is at the start of a record
+    private boolean tooLong;            // that record does not fit in the window
+    private final char[][] grid = new char[Board.SIZE][Board.SIZE];
+
+    /**
+     * constructor
+     * @param filename: puzzle file
+     */
+    public PuzzleFileReader(String filename) throws IOException {
+        this(filename, WINDOW);
+    }
+
+    /**
+     * constructor w/ a custom window size
+     * @param filename: puzzle file
+     * @param window: bytes mapped at once, must hold the longest line
+     */
+    public PuzzleFileReader(String filename, int window) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        fileSize = channel.size();
+        this.window = window;
+        bufferStart = 0;
+        lineNumber = 1;
+        map(0);
+    }
+
+    /**
+     * line of the record last returned by next(), or that it failed on
+     */
+    public long getLineNumber() { return recordLine; }
+
+    /**
+     * map the window starting at a file offset
+     */
+    private void map(long start) throws IOException {
+        long length = Math.min(window, fileSize - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        bufferStart = start;
+    }
+
+    /**
+     * index of the newline ending the line that starts at from
+     * @return -1 if the line runs past the end of the window
+     */
+    private int lineEnd(int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * make sure the whole line at the current position is mapped,
+     * remapping from the start of the line if it runs past the window
+     * @return false at end of file
+     */
+    private boolean ensureLine() {
+        long at = bufferStart + buffer.position();
+        if (at >= fileSize)
+            return false;
+        if (lineEnd(buffer.position()) < 0 && bufferStart + buffer.limit() < fileSize) {
+            try {
+                map(at);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tooLong = lineEnd(0) < 0 && bufferStart + buffer.limit() < fileSize;
+        }
+        return true;
+    }
+
+    /**
+     * move past a line longer than the window, mapping window after window
+     */
+    private void skipLongLine() {
+        try {
+            int end;
+            while ((end = lineEnd(buffer.position())) < 0 && bufferStart + buffer.limit() < fileSize)
+                map(bufferStart + buffer.limit());
+            buffer.position(end < 0 ? buffer.limit() : end + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        tooLong = false;
+        lineNumber++;
+    }
+
+    /**
+     * skip blank and comment lines
+     */
+    @Override
+    public boolean hasNext() {
+        if (ready)
+            return true;
+        while (ensureLine()) {
+            byte first = buffer.get(buffer.position());
+            if (first == '\n' || first == '\r' || first == '#') {
+                skipLine();
+                continue;
+            }
+            ready = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * parse the next puzzle
+     * a bad record throws PuzzleFormatException w/ its line number;
+     * the reader has already moved past it, so reading can go on
+     * @return new board
+     */
+    @Override
+    public Board next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        ready = false;
+        recordLine = lineNumber;
+        if (tooLong) {
+            skipLongLine();
+            throw new PuzzleFormatException(recordLine, "line longer than " + window + " bytes");
+        }
+
+        int cells = 0;
+        byte b = 0;
+        while (buffer.hasRemaining()) {
+            b = buffer.get(buffer.position());
+            if (b == '\n' || b == '\r' || b == ' ' || b == '\t')
+                break;
+            if (cells < CELLS)
+                grid[cells / Board.SIZE][cells % Board.SIZE] = (char) b;
+            cells++;
+            buffer.position(buffer.position() + 1);
+        }
+        skipLine();
+
+        if (cells != CELLS)
+            throw new PuzzleFormatException(recordLine, "expected " + CELLS + " cells, found " + cells);
+        try {
+            return new Board(grid);
+        } catch (IllegalArgumentException e) {
+            throw new PuzzleFormatException(recordLine, e.getMessage());
+        }
+    }
+
+    /**
+     * move past the end of the current line
+     */
+    private void skipLine() {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n')
+                break;
+        }
+        lineNumber++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
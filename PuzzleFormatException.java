@@ -0,0 +1,22 @@
+package rushhour;
+
+/**
+ * a puzzle record that could not be turned into a board
+ */
+public class PuzzleFormatException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final long lineNumber;
+
+    /**
+     * constructor
+     * @param lineNumber: 1-based line of the bad record
+     * @param message: what was wrong w/ it
+     */
+    public PuzzleFormatException(long lineNumber, String message) {
+        super("line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    public long getLineNumber() { return lineNumber; }
+}
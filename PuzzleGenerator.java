@@ -0,0 +1,513 @@
+package rushhour;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * mines the hardest puzzle of every car layout
+ *
+ * a layout says which cars sit in each lane, in lane order: xCar in row 2
+ * w/ any cars left of it, and up to three cars in every other row and
+ * column. every layout up to a number of cars is enumerated; for each one
+ * every placement of its cars is listed and a BFS backwards from all solved
+ * placements gives each placement's moves to the exit. the placements of
+ * a layout fall into clusters (boards reachable from each other), and the
+ * placement w/ the most moves in each cluster that can be solved is
+ * written out along w/ the size of its cluster
+ *
+ * layouts are split into shards by the cars of the first lanes, and shards
+ * run on a fixed thread pool. a shard's puzzles go to a temp file next to
+ * the output, ending w/ a "# shard n" line, and the whole file is then
+ * appended to the output in one step, so shards never interleave. a rerun
+ * on the same output file skips finished shards and drops the torn tail
+ * of an interrupted one. a shard that can't be written is taken back out
+ * of the output and fails the run
+ *
+ * output lines are the puzzle file format PuzzleFileReader reads, w/ the
+ * move count and cluster size after the cells:
+ *   ..............XXE.AAD.E..CD.E..CD.BB 41 440
+ *
+ * placements are packed states in sorted long arrays, w/ distances in a
+ * parallel short array, and each worker reuses its arrays from layout to
+ * layout, so nothing is allocated per state
+ */
+public class PuzzleGenerator {
+    // lengths of the cars of one lane, in lane order
+    private static final int[][] LANE_PATTERNS = { {}, {2}, {3}, {2, 2}, {2, 3}, {3, 2}, {3, 3}, {2, 2, 2} };
+    // cars left of xCar in its row; a car right of it would block the exit
+    private static final int[][] X_ROW_PATTERNS = { {}, {2}, {3}, {2, 2} };
+    private static final int X_ROW = (Board.SIZE - 1) / 2;
+    private static final int X_LENGTH = 2;
+    // lanes besides xCar's row: the other rows, then the columns
+    private static final int LANES = 2 * Board.SIZE - 1;
+    // lanes whose patterns pick the shard, after xCar's row
+    private static final int SHARD_LANES = 2;
+    private static final String SHARD_LINE = "# shard ";
+    private static final int NO_DISTANCE = 0xFFFF;  // unsolvable, stored as an unsigned short
+
+    private final MoveMetric metric;
+    private final int maxCars;
+    private final int minMoves;
+    private final AtomicLong layouts = new AtomicLong();
+    private final AtomicLong states = new AtomicLong();
+    private final AtomicLong puzzles = new AtomicLong();
+
+    /**
+     * constructor
+     * @param metric: what counts as one move
+     * @param maxCars: most cars in a layout, xCar included
+     * @param minMoves: layouts whose hardest puzzle takes fewer moves are not written
+     */
+    public PuzzleGenerator(MoveMetric metric, int maxCars, int minMoves) {
+        if (maxCars < 1 || maxCars > CarLayout.MAX_CARS)
+            throw new IllegalArgumentException("cars must be in [1, " + CarLayout.MAX_CARS + "]: " + maxCars);
+        this.metric = metric;
+        this.maxCars = maxCars;
+        this.minMoves = Math.max(minMoves, 1);
+    }
+
+    // getters
+    public long getLayouts() { return layouts.get(); }
+    public long getStates() { return states.get(); }
+    public long getPuzzles() { return puzzles.get(); }
+
+    /**
+     * number of shards the layouts are split into
+     */
+    public static int getShardCount() {
+        int count = X_ROW_PATTERNS.length;
+        for (int i = 0; i < SHARD_LANES; i++)
+            count *= LANE_PATTERNS.length;
+        return count;
+    }
+
+    /**
+     * mine every shard not yet finished in the output file
+     * @param output: file puzzles are appended to, created if missing
+     * @param workers: threads mining shards
+     * @return shards mined by this call
+     * @throws IOException if a shard could not be written; shards appended before it are kept
+     */
+    public int run(String output, int workers) throws IOException, InterruptedException {
+        Path path = Paths.get(output);
+        Path dir = path.toAbsolutePath().getParent();
+        String header = "# PuzzleGenerator " + metric.name().toLowerCase() + " cars=" + maxCars + " min=" + minMoves;
+        Set<Integer> done = resume(path, header);
+        // temp files of shards an interrupted run was still mining
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, path.getFileName() + ".shard*.tmp")) {
+            for (Path temp : stale)
+                Files.deleteIfExists(temp);
+        }
+
+        int count = 0;
+        AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (out.size() == 0)
+                out.write(ByteBuffer.wrap((header + "\n").getBytes(StandardCharsets.US_ASCII)));
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            ThreadLocal<Miner> miners = ThreadLocal.withInitial(Miner::new);
+            for (int shard = 0; shard < getShardCount(); shard++) {
+                if (done.contains(shard))
+                    continue;
+                final int s = shard;
+                count++;
+                pool.execute(() -> {
+                    if (failure.get() != null)
+                        return;
+                    try {
+                        Path temp = Files.createTempFile(dir, path.getFileName() + ".shard" + s + "-", ".tmp");
+                        try {
+                            try (Writer block = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII)) {
+                                miners.get().mineShard(s, block);
+                                block.write(SHARD_LINE + s + "\n");
+                            }
+                            append(out, temp, failure);
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+
+        Exception e = failure.get();
+        if (e instanceof IOException)
+            throw new IOException("could not write a shard to " + path + ": " + e.getMessage(), e);
+        if (e != null)
+            throw (RuntimeException) e;
+        return count;
+    }
+
+    /**
+     * append a finished shard file to the output, or nothing of it
+     * @param out: output, opened for appending
+     * @param shard: temp file holding the shard's lines and its shard line
+     * @param failure: set by a shard that failed; once it is, nothing more is appended
+     */
+    private static void append(FileChannel out, Path shard, AtomicReference<Exception> failure) throws IOException {
+        synchronized (out) {
+            if (failure.get() != null)
+                return;
+            long before = out.size();
+            try (FileChannel in = FileChannel.open(shard, StandardOpenOption.READ)) {
+                long size = in.size();
+                for (long copied = 0; copied < size; )
+                    copied += in.transferTo(copied, size - copied, out);
+            } catch (IOException e) {
+                // take back whatever part of the shard made it in
+                out.truncate(before);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * read the shards an earlier run finished and cut off anything after
+     * the last one, i.e. part of a shard that was being written
+     * @param path: output file, may not exist yet
+     * @param header: first line the file must have
+     * @return finished shards
+     */
+    private static Set<Integer> resume(Path path, String header) throws IOException {
+        Set<Integer> done = new HashSet<Integer>();
+        if (!Files.exists(path) || Files.size(path) == 0)
+            return done;
+        long offset = 0;
+        long end = 0;       // just past the last complete shard line
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.US_ASCII))) {
+            String line = in.readLine();
+            if (!header.equals(line))
+                throw new IOException(path + " was made w/ other settings: " + line);
+            offset = end = line.length() + 1;
+            while ((line = in.readLine()) != null) {
+                offset += line.length() + 1;
+                if (line.startsWith(SHARD_LINE)) {
+                    done.add(Integer.parseInt(line.substring(SHARD_LINE.length()).trim()));
+                    end = offset;
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > end)
+                channel.truncate(end);
+        }
+        return done;
+    }
+
+    /**
+     * one worker's reusable arrays, mining one layout at a time
+     */
+    private class Miner {
+        private final int[] pattern = new int[LANES];   // LANE_PATTERNS index of each lane
+        private int xPattern;                           // X_ROW_PATTERNS index
+        private final byte[] positions = new byte[CarLayout.MAX_CARS];
+        private final char[] cells = new char[Board.SIZE * Board.SIZE];
+        private long[] stateBuf = new long[1024];
+        private short[] dist = new short[1024];
+        private int[] queue = new int[1024];
+        private int[] cluster = new int[1024];          // cluster of each placement, -1 until found
+
+        private CarLayout layout;
+        private int[] laneStart;    // first car of each lane, w/ xCar's row as lane 0
+        private int count;          // placements listed so far
+
+        /**
+         * mine every layout of a shard
+         * @param shard: picks xCar's row and the first SHARD_LANES lanes
+         * @param out: puzzle lines are written here
+         */
+        void mineShard(int shard, Writer out) throws IOException {
+            int rest = shard;
+            for (int i = SHARD_LANES - 1; i >= 0; i--) {
+                pattern[i] = rest % LANE_PATTERNS.length;
+                rest /= LANE_PATTERNS.length;
+            }
+            xPattern = rest;
+            int cars = 1 + X_ROW_PATTERNS[xPattern].length;
+            for (int i = 0; i < SHARD_LANES; i++)
+                cars += LANE_PATTERNS[pattern[i]].length;
+            if (cars <= maxCars)
+                layouts(SHARD_LANES, cars, out);
+        }
+
+        /**
+         * pick the cars of lanes from lane on, mining each complete layout
+         */
+        private void layouts(int lane, int cars, Writer out) throws IOException {
+            if (lane == LANES) {
+                mineLayout(out);
+                return;
+            }
+            for (int p = 0; p < LANE_PATTERNS.length; p++) {
+                if (cars + LANE_PATTERNS[p].length > maxCars)
+                    continue;
+                pattern[lane] = p;
+                layouts(lane + 1, cars + LANE_PATTERNS[p].length, out);
+            }
+        }
+
+        /**
+         * list every placement of the layout's cars, find each one's moves
+         * to the exit and write out the hardest of each cluster
+         */
+        private void mineLayout(Writer out) throws IOException {
+            buildLayout();
+            count = 0;
+            place(0, 0);
+            layouts.incrementAndGet();
+            if (count == 0)
+                return;
+            states.addAndGet(count);
+            Arrays.sort(stateBuf, 0, count);
+            if (dist.length < count) {
+                dist = new short[stateBuf.length];
+                queue = new int[stateBuf.length];
+            }
+
+            // BFS back from every solved placement
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < count; i++) {
+                if (layout.isSolved(stateBuf[i])) {
+                    dist[i] = 0;
+                    queue[tail++] = i;
+                } else {
+                    dist[i] = (short) NO_DISTANCE;
+                }
+            }
+            while (head < tail) {
+                int i = queue[head++];
+                int d = dist[i] & 0xFFFF;
+                long s = stateBuf[i];
+                CarLayout.unpack(s, positions);
+                long occupied = occupancy();
+                for (int c = 0; c < layout.getNumCars(); c++) {
+                    for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                        int p = positions[c];
+                        for (int k = 1; ; k++) {
+                            long cell = layout.getEntryCell(c, p + (k - 1) * dir, dir);
+                            if (cell == 0 || (cell & occupied) != 0)
+                                break;
+                            int j = Arrays.binarySearch(stateBuf, 0, count, CarLayout.applyMove(s, c, dir * k));
+                            if ((dist[j] & 0xFFFF) == NO_DISTANCE) {
+                                if (d + 1 >= NO_DISTANCE)
+                                    throw new IllegalStateException("distance over " + (NO_DISTANCE - 1) + " moves");
+                                dist[j] = (short) (d + 1);
+                                queue[tail++] = j;
+                            }
+                            if (metric == MoveMetric.STEP)
+                                break;
+                        }
+                    }
+                }
+            }
+
+            // clusters in order of their first placement, each w/ its hardest placement
+            if (cluster.length < count)
+                cluster = new int[stateBuf.length];
+            Arrays.fill(cluster, 0, count, -1);
+            int clusters = 0;
+            for (int first = 0; first < count; first++) {
+                if (cluster[first] >= 0)
+                    continue;
+                int size = findCluster(first, clusters++);
+                int hardest = -1;
+                int maxDist = -1;
+                for (int q = 0; q < size; q++) {
+                    int i = queue[q];
+                    int d = dist[i] & 0xFFFF;
+                    if (d != NO_DISTANCE && (d > maxDist || (d == maxDist && i < hardest))) {
+                        maxDist = d;
+                        hardest = i;
+                    }
+                }
+                if (maxDist < minMoves)
+                    continue;
+                puzzles.incrementAndGet();
+                out.write(render(stateBuf[hardest]) + " " + maxDist + " " + size + "\n");
+            }
+        }
+
+        /**
+         * cars of the current patterns as a CarLayout, xCar's row first
+         */
+        private void buildLayout() {
+            List<Car> cars = new ArrayList<Car>();
+            laneStart = new int[LANES + 2];
+            char name = 'A';
+            for (int len : X_ROW_PATTERNS[xPattern]) {
+                cars.add(new Car(name, 0, X_ROW, len, Car.HORI));
+                name = nextName(name);
+            }
+            cars.add(new Car('X', 0, X_ROW, X_LENGTH, Car.HORI));
+            for (int lane = 0; lane < LANES; lane++) {
+                laneStart[lane + 1] = cars.size();
+                boolean isRow = lane < Board.SIZE - 1;
+                int index = isRow ? ((lane < X_ROW) ? lane : lane + 1) : lane - (Board.SIZE - 1);
+                for (int len : LANE_PATTERNS[pattern[lane]]) {
+                    cars.add(isRow ? new Car(name, 0, index, len, Car.HORI) : new Car(name, index, 0, len, Car.VERT));
+                    name = nextName(name);
+                }
+            }
+            laneStart[LANES + 1] = cars.size();
+            layout = new CarLayout(cars);
+        }
+
+        /**
+         * place the cars of lanes from lane on in every way that fits,
+         * adding each complete placement to stateBuf
+         */
+        private void place(int lane, long occupied) {
+            if (lane == LANES + 1) {
+                if (count == stateBuf.length)
+                    stateBuf = Arrays.copyOf(stateBuf, count * 2);
+                long state = 0;
+                for (int i = layout.getNumCars() - 1; i >= 0; i--)
+                    state = (state << CarLayout.POS_BITS) | positions[i];
+                stateBuf[count++] = state;
+                return;
+            }
+            placeLane(lane, laneStart[lane], 0, occupied);
+        }
+
+        /**
+         * place car i of a lane at or after position from, then the rest
+         */
+        private void placeLane(int lane, int i, int from, long occupied) {
+            if (i == laneStart[lane + 1]) {
+                place(lane + 1, occupied);
+                return;
+            }
+            int len = layout.getLength(i);
+            int after = 0;      // room the cars behind it in the lane need
+            for (int j = i + 1; j < laneStart[lane + 1]; j++)
+                after += layout.getLength(j);
+            for (int p = from; p + len + after <= Board.SIZE; p++) {
+                long mask = layout.getCarMask(i, p);
+                if ((mask & occupied) != 0)
+                    continue;
+                positions[i] = (byte) p;
+                placeLane(lane, i + 1, p + len, occupied | mask);
+            }
+        }
+
+        private long occupancy() {
+            long occupied = 0;
+            for (int c = 0; c < layout.getNumCars(); c++)
+                occupied |= layout.getCarMask(c, positions[c]);
+            return occupied;
+        }
+
+        /**
+         * mark the boards reachable from a placement as one cluster, by BFS
+         * @param start: placement not in any cluster yet
+         * @param id: number the cluster gets in cluster[]
+         * @return size of the cluster, whose placements are left in queue[0..size)
+         */
+        private int findCluster(int start, int id) {
+            int head = 0;
+            int tail = 0;
+            cluster[start] = id;
+            queue[tail++] = start;
+            while (head < tail) {
+                long s = stateBuf[queue[head++]];
+                CarLayout.unpack(s, positions);
+                long occupied = occupancy();
+                for (int c = 0; c < layout.getNumCars(); c++) {
+                    for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                        int p = positions[c];
+                        for (int k = 1; ; k++) {
+                            long cell = layout.getEntryCell(c, p + (k - 1) * dir, dir);
+                            if (cell == 0 || (cell & occupied) != 0)
+                                break;
+                            int j = Arrays.binarySearch(stateBuf, 0, count, CarLayout.applyMove(s, c, dir * k));
+                            if (cluster[j] < 0) {
+                                cluster[j] = id;
+                                queue[tail++] = j;
+                            }
+                        }
+                    }
+                }
+            }
+            return tail;
+        }
+
+        /**
+         * a placement in the puzzle file format, one char per cell
+         */
+        private String render(long state) {
+            Arrays.fill(cells, '.');
+            for (int c = 0; c < layout.getNumCars(); c++) {
+                int p = CarLayout.positionOf(state, c);
+                for (int k = 0; k < layout.getLength(c); k++) {
+                    int row = layout.getY(c, p) + ((layout.getDir(c) == Car.VERT) ? k : 0);
+                    int col = layout.getX(c, p) + ((layout.getDir(c) == Car.HORI) ? k : 0);
+                    cells[row * Board.SIZE + col] = layout.getName(c);
+                }
+            }
+            return new String(cells);
+        }
+    }
+
+    private static char nextName(char name) {
+        name++;
+        return (name == 'X') ? (char) (name + 1) : name;
+    }
+
+    /**
+     * mine layouts into an output file, picking up where an earlier run
+     * on the same file stopped
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("usage: PuzzleGenerator <output file> [step|slide] [-cars n] [-min moves] [-threads n]");
+            return;
+        }
+        MoveMetric metric = MoveMetric.STEP;
+        int cars = 8;
+        int min = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-cars") && i + 1 < args.length)
+                cars = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-min") && i + 1 < args.length)
+                min = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-threads") && i + 1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else
+                metric = MoveMetric.valueOf(args[i].toUpperCase());
+        }
+
+        PuzzleGenerator generator = new PuzzleGenerator(metric, cars, min);
+        long start = System.nanoTime();
+        int shards = generator.run(args[0], threads);
+        System.out.println(shards + " of " + getShardCount() + " shards mined, " + generator.getLayouts() + " layouts, "
+                + generator.getStates() + " boards, " + generator.getPuzzles() + " puzzles written, "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
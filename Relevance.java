@@ -0,0 +1,155 @@
+package rushhour;
+
+/**
+ * which cars can ever matter to xCar, worked out before searching
+ *
+ * cars that share a lane can never pass each other, or a wall, so each
+ * car is confined to a span of its lane between whatever is ahead of and
+ * behind it.
+ * starting from xCar, a car is relevant if its span crosses the span of
+ * a relevant car, i.e. it could ever get in that car's way. any other car
+ * never touches a cell a relevant car could use, so moving it can neither
+ * help nor hurt, and searches leave it where it is. every solution that
+ * moves only relevant cars is still found, so shortest solutions stay
+ * shortest, while each irrelevant car divides the states visited by the
+ * number of places it could have been
+ *
+ * the same spans show some boards can never be solved, w/o a search:
+ *   a wall or horizontal car between xCar and the exit in its row
+ *   a car that covers a cell of xCar's path wherever it is in its span
+ */
+public final class Relevance {
+    private final long relevant;            // bitset of car indices
+    private final int[] movableCars;        // relevant cars w/ more than one position
+    private final long[] spans;             // cells each car can ever cover
+    private final String unsolvableReason;  // null unless trivially unsolvable
+
+    /**
+     * constructor
+     */
+    private Relevance(long relevant, int[] movableCars, long[] spans, String unsolvableReason) {
+        this.relevant = relevant;
+        this.movableCars = movableCars;
+        this.spans = spans;
+        this.unsolvableReason = unsolvableReason;
+    }
+
+    /**
+     * analyze the cars of a board
+     * the result holds for every board reachable from it
+     * @param board
+     * @return relevant cars, and whether the board is trivially unsolvable
+     */
+    public static Relevance analyze(Board board) {
+        CarLayout layout = board.getLayout();
+        int n = layout.getNumCars();
+        int x = layout.getXIndex();
+        if (x < 0)
+            return new Relevance(0, new int[0], new long[n], "no X car");
+
+        // positions each car can take, bounded by the cars and walls in its lane
+        long walls = layout.getGeometry().getWalls();
+        int[] minPos = new int[n];
+        int[] maxPos = new int[n];
+        long[] span = new long[n];      // cells car can ever cover
+        long[] always = new long[n];    // cells car covers wherever it is
+        for (int i = 0; i < n; i++) {
+            minPos[i] = 0;
+            maxPos[i] = layout.getLaneLength(i) - layout.getLength(i);
+            for (int j = 0; j < n; j++) {
+                if (j == i || layout.getDir(j) != layout.getDir(i) || layout.getLane(j) != layout.getLane(i))
+                    continue;
+                if (board.getPosition(j) < board.getPosition(i))
+                    minPos[i] += layout.getLength(j);
+                else
+                    maxPos[i] -= layout.getLength(j);
+            }
+            int p0 = board.getPosition(i);
+            for (int p = p0; p >= minPos[i]; p--) {
+                if ((layout.getCarMask(i, p) & walls) != 0) {
+                    minPos[i] = p + 1;
+                    break;
+                }
+            }
+            for (int p = p0; p <= maxPos[i]; p++) {
+                if ((layout.getCarMask(i, p) & walls) != 0) {
+                    maxPos[i] = p - 1;
+                    break;
+                }
+            }
+            always[i] = -1L;
+            for (int p = minPos[i]; p <= maxPos[i]; p++) {
+                span[i] |= layout.getCarMask(i, p);
+                always[i] &= layout.getCarMask(i, p);
+            }
+        }
+
+        String reason = null;
+        int goal = layout.getGoalPosition();
+        if ((layout.getExitPath(board.getPosition(x)) & walls) != 0) {
+            reason = "wall in X's path";
+        } else if (goal < minPos[x] || goal > maxPos[x]) {
+            reason = (goal > maxPos[x]) ? "car right of X in its row" : "car left of X in its row";
+        } else {
+            long path = layout.getExitPath(board.getPosition(x));
+            for (int i = 0; i < n && reason == null; i++) {
+                if (i != x && (always[i] & path) != 0)
+                    reason = "car " + layout.getName(i) + " can never leave X's path";
+            }
+        }
+
+        // grow the relevant set from xCar until no other span crosses it
+        long relevant = 1L << x;
+        long relevantSpan = span[x];
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (int i = 0; i < n; i++) {
+                if ((relevant & (1L << i)) == 0 && (span[i] & relevantSpan) != 0) {
+                    relevant |= 1L << i;
+                    relevantSpan |= span[i];
+                    grew = true;
+                }
+            }
+        }
+
+        int count = 0;
+        int[] movable = new int[n];
+        for (int i = 0; i < n; i++) {
+            if ((relevant & (1L << i)) != 0 && maxPos[i] > minPos[i])
+                movable[count++] = i;
+        }
+        return new Relevance(relevant, java.util.Arrays.copyOf(movable, count), span, reason);
+    }
+
+    /**
+     * check if a car can ever matter to xCar
+     */
+    public boolean isRelevant(int car) {
+        return (relevant & (1L << car)) != 0;
+    }
+
+    /**
+     * cells a car can ever cover, bounded by the cars and walls in its lane
+     * @return bitmask of cells
+     */
+    public long getSpan(int car) { return spans[car]; }
+
+    /**
+     * relevant cars that have room to move, in index order
+     * searches only need to try moves of these cars
+     * @return shared array, not to be modified
+     */
+    public int[] getMovableCars() { return movableCars; }
+
+    /**
+     * check if the board was shown unsolvable w/o a search
+     */
+    public boolean isTriviallyUnsolvable() { return unsolvableReason != null; }
+
+    /**
+     * why the board cannot be solved
+     * @return reason, or null if it was not shown unsolvable
+     */
+    public String getUnsolvableReason() { return unsolvableReason; }
+}
@@ -0,0 +1,122 @@
+package rushhour;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * limits on one search, so a single hard puzzle cannot hold a thread
+ * for long: wall-clock time, boards expanded, and bytes held by the
+ * visited set. a search over budget stops w/ a SearchResult whose status
+ * says which limit was hit, along w/ the stats gathered so far
+ *
+ * limits are checked once per expanded board (per layer chunk in
+ * ParallelBfsStrategy), so a search can run over by one expansion, and
+ * the visited set by the one table resize that crossed the limit
+ *
+ * a budget can also carry cancel flags, see withCancellation(). setting
+ * one stops every search run w/ the budget at its next check, the same
+ * way a limit does, so a search that is no longer wanted lets go of its
+ * visited set w/o the thread being interrupted
+ */
+public final class SearchBudget {
+    // no limits
+    public static final SearchBudget UNLIMITED = new SearchBudget(0, 0, 0);
+
+    private final long maxNanos;            // Long.MAX_VALUE if unlimited
+    private final long maxExpanded;         // Long.MAX_VALUE if unlimited
+    private final long maxVisitedBytes;     // Long.MAX_VALUE if unlimited
+    private final AtomicBoolean[] cancelFlags;  // any one set stops the search, usually none
+
+    /**
+     * constructor, a limit of 0 means no limit
+     * @param maxMillis: wall-clock time from the start of the search
+     * @param maxExpanded: boards expanded
+     * @param maxVisitedBytes: memory held by the visited set
+     */
+    public SearchBudget(long maxMillis, long maxExpanded, long maxVisitedBytes) {
+        if (maxMillis < 0 || maxExpanded < 0 || maxVisitedBytes < 0)
+            throw new IllegalArgumentException("budget limits must not be negative");
+        this.maxNanos = (maxMillis == 0 || maxMillis > Long.MAX_VALUE / 1_000_000)
+                ? Long.MAX_VALUE : maxMillis * 1_000_000;
+        this.maxExpanded = (maxExpanded == 0) ? Long.MAX_VALUE : maxExpanded;
+        this.maxVisitedBytes = (maxVisitedBytes == 0) ? Long.MAX_VALUE : maxVisitedBytes;
+        this.cancelFlags = new AtomicBoolean[0];
+    }
+
+    /**
+     * copy of other w/ one more cancel flag
+     */
+    private SearchBudget(SearchBudget other, AtomicBoolean cancelled) {
+        this.maxNanos = other.maxNanos;
+        this.maxExpanded = other.maxExpanded;
+        this.maxVisitedBytes = other.maxVisitedBytes;
+        this.cancelFlags = java.util.Arrays.copyOf(other.cancelFlags, other.cancelFlags.length + 1);
+        this.cancelFlags[other.cancelFlags.length] = cancelled;
+    }
+
+    /**
+     * same limits, plus a flag that stops the search once set
+     * flags of this budget still apply, so cancelling an outer search
+     * also stops the searches it started
+     * @param cancelled: set to true to stop every search run w/ the new budget
+     * @return new budget
+     */
+    public SearchBudget withCancellation(AtomicBoolean cancelled) {
+        return new SearchBudget(this, cancelled);
+    }
+
+    /**
+     * check if any cancel flag of this budget is set
+     */
+    public boolean isCancelled() {
+        for (AtomicBoolean flag : cancelFlags) {
+            if (flag.get())
+                return true;
+        }
+        return false;
+    }
+
+    // getters
+    public long getMaxExpanded() { return maxExpanded; }
+    public long getMaxVisitedBytes() { return maxVisitedBytes; }
+    public boolean isUnlimited() {
+        return maxNanos == Long.MAX_VALUE && maxExpanded == Long.MAX_VALUE && maxVisitedBytes == Long.MAX_VALUE
+                && cancelFlags.length == 0;
+    }
+
+    /**
+     * System.nanoTime() after which a search must stop
+     * @param startNanos: when the search started
+     * @return deadline, or Long.MAX_VALUE if there is no time limit
+     */
+    public long deadline(long startNanos) {
+        if (maxNanos == Long.MAX_VALUE || startNanos > Long.MAX_VALUE - maxNanos)
+            return Long.MAX_VALUE;
+        return startNanos + maxNanos;
+    }
+
+    /**
+     * check a running search against every limit
+     * @param stats: stats of the search, start() already called
+     * @param visitedBytes: memory now held by its visited set
+     * @return the limit that was hit, or null while within budget
+     */
+    public SearchStatus check(SearchStats stats, long visitedBytes) {
+        if (cancelFlags.length > 0 && isCancelled())
+            return SearchStatus.CANCELLED;
+        if (stats.getNodesExpanded() >= maxExpanded)
+            return SearchStatus.NODE_LIMIT;
+        if (visitedBytes > maxVisitedBytes)
+            return SearchStatus.MEMORY_LIMIT;
+        if (maxNanos != Long.MAX_VALUE && System.nanoTime() - stats.getStartNanos() > maxNanos)
+            return SearchStatus.TIME_LIMIT;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "maxMs=" + ((maxNanos == Long.MAX_VALUE) ? "none" : String.valueOf(maxNanos / 1_000_000))
+                + " maxExpanded=" + ((maxExpanded == Long.MAX_VALUE) ? "none" : String.valueOf(maxExpanded))
+                + " maxVisitedBytes=" + ((maxVisitedBytes == Long.MAX_VALUE) ? "none" : String.valueOf(maxVisitedBytes))
+                + ((cancelFlags.length == 0) ? "" : " cancellable");
+    }
+}
@@ -0,0 +1,67 @@
+package rushhour;
+
+/**
+ * outcome of a SearchStrategy run on one board
+ */
+public class SearchResult {
+    private final Board finalBoard;     // solved board, null if unsolved
+    private final int[] moves;          // packed moves from start to finalBoard, see Move
+    private final SearchStats stats;    // counters and timings of the search
+    private final String strategyName;
+    private final SearchStatus status;  // solved, unsolvable, or which budget ran out
+
+    /**
+     * constructor for a search that ran to the end
+     * @param finalBoard: solved board, or null if the board cannot be solved
+     * @param moves: packed moves that reach finalBoard, null if unsolved
+     * @param stats: counters and timings of the search
+     * @param strategyName
+     */
+    public SearchResult(Board finalBoard, int[] moves, SearchStats stats, String strategyName) {
+        this(finalBoard, moves, stats, strategyName,
+                (finalBoard != null) ? SearchStatus.SOLVED : SearchStatus.UNSOLVABLE);
+    }
+
+    /**
+     * constructor
+     * @param finalBoard: solved board, null unless status is SOLVED
+     * @param moves: packed moves that reach finalBoard, null unless status is SOLVED
+     * @param stats: counters and timings of the search so far
+     * @param strategyName
+     * @param status: how the search ended
+     */
+    public SearchResult(Board finalBoard, int[] moves, SearchStats stats, String strategyName, SearchStatus status) {
+        this.finalBoard = finalBoard;
+        this.moves = moves;
+        this.stats = stats;
+        this.strategyName = strategyName;
+        this.status = status;
+    }
+
+    /**
+     * result of a search stopped by its budget
+     * @param stats: counters and timings of the search so far
+     * @param strategyName
+     * @param status: the limit that was hit
+     */
+    public static SearchResult overBudget(SearchStats stats, String strategyName, SearchStatus status) {
+        return new SearchResult(null, null, stats, strategyName, status);
+    }
+
+    // getters
+    public Board getFinalBoard() { return finalBoard; }
+    public int[] getMoves() { return moves; }
+    public SearchStats getStats() { return stats; }
+    public long getNodesExpanded() { return stats.getNodesExpanded(); }
+    public String getStrategyName() { return strategyName; }
+    public SearchStatus getStatus() { return status; }
+    public boolean isSolved() { return finalBoard != null; }
+
+    /**
+     * number of moves in the solution
+     * @return move count, or -1 if unsolved
+     */
+    public int getMoveCount() {
+        return (moves == null) ? -1 : moves.length;
+    }
+}
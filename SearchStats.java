@@ -0,0 +1,157 @@
+package rushhour;
+
+import java.util.Arrays;
+
+/**
+ * counters and timings gathered during one search
+ * strategies fill these in as they go and return them in their SearchResult
+ *
+ * wall time is always measured; time spent expanding boards and hashing
+ * successors into the visited set costs a clock read per board and per
+ * successor, so it is only measured once setDetailedTiming(true) is called
+ */
+public class SearchStats {
+    private static volatile boolean detailedTiming = false;
+
+    private final boolean timed;    // detailedTiming when this search started
+    private long nodesGenerated;    // legal successors produced
+    private long nodesExpanded;     // boards whose successors were produced
+    private long duplicates;        // successors rejected as already seen
+    private int peakFrontier;       // most boards waiting to be expanded at once
+    private int peakVisited;        // most states in the visited set at once
+    private int[] layerSizes;       // states first reached at each depth
+    private int maxDepth;           // deepest layer reached
+    private long startNanos;
+    private long wallNanos;
+    private long expansionNanos;    // includes hashingNanos
+    private long hashingNanos;
+
+    /**
+     * constructor
+     */
+    public SearchStats() {
+        timed = detailedTiming;
+        layerSizes = new int[64];
+        maxDepth = -1;
+    }
+
+    /**
+     * turn per-board and per-successor timing on or off for searches started afterwards
+     */
+    public static void setDetailedTiming(boolean on) { detailedTiming = on; }
+    public static boolean isDetailedTiming() { return detailedTiming; }
+
+    // getters
+    public long getNodesGenerated() { return nodesGenerated; }
+    public long getNodesExpanded() { return nodesExpanded; }
+    public long getDuplicates() { return duplicates; }
+    public int getPeakFrontier() { return peakFrontier; }
+    public int getPeakVisited() { return peakVisited; }
+    public int getMaxDepth() { return maxDepth; }
+    public long getStartNanos() { return startNanos; }
+    public long getWallNanos() { return wallNanos; }
+    public long getExpansionNanos() { return expansionNanos; }
+    public long getHashingNanos() { return hashingNanos; }
+
+    /**
+     * states first reached at each depth, index = moves from start
+     * @return copy, maxDepth + 1 entries long
+     */
+    public int[] getLayerSizes() {
+        return Arrays.copyOf(layerSizes, maxDepth + 1);
+    }
+
+    /**
+     * mark the start of the search
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * mark the end of the search
+     */
+    public void stop() {
+        wallNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * current time if detailed timing is on, otherwise 0
+     * pass the value back to addExpansionTime() or addHashingTime()
+     */
+    public long clock() {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * add time since a clock() reading to expansion time
+     */
+    public void addExpansionTime(long since) {
+        if (timed)
+            expansionNanos += System.nanoTime() - since;
+    }
+
+    /**
+     * add time since a clock() reading to hashing time
+     */
+    public void addHashingTime(long since) {
+        if (timed)
+            hashingNanos += System.nanoTime() - since;
+    }
+
+    public void recordGenerated() { nodesGenerated++; }
+    public void recordExpanded() { nodesExpanded++; }
+    public void recordDuplicate() { duplicates++; }
+
+    // bulk versions, for searches that count per thread and add up later
+    public void addGenerated(long n) { nodesGenerated += n; }
+    public void addExpanded(long n) { nodesExpanded += n; }
+    public void addDuplicates(long n) { duplicates += n; }
+
+    /**
+     * count a state reached for the first time
+     * @param depth: moves from start
+     */
+    public void recordReached(int depth) {
+        if (depth >= layerSizes.length)
+            layerSizes = Arrays.copyOf(layerSizes, Math.max(depth + 1, layerSizes.length * 2));
+        layerSizes[depth]++;
+        if (depth > maxDepth)
+            maxDepth = depth;
+    }
+
+    /**
+     * count a whole layer of states first reached at the same depth
+     * @param depth: moves from start
+     * @param count: states in the layer
+     */
+    public void recordLayer(int depth, int count) {
+        recordReached(depth);
+        layerSizes[depth] += count - 1;
+    }
+
+    /**
+     * track the largest frontier and visited set seen so far
+     * @param frontier: boards waiting to be expanded
+     * @param visited: states in the visited set
+     */
+    public void updatePeaks(int frontier, int visited) {
+        if (frontier > peakFrontier)
+            peakFrontier = frontier;
+        if (visited > peakVisited)
+            peakVisited = visited;
+    }
+
+    @Override
+    public String toString() {
+        return "expanded=" + nodesExpanded
+                + " generated=" + nodesGenerated
+                + " duplicates=" + duplicates
+                + " peakFrontier=" + peakFrontier
+                + " peakVisited=" + peakVisited
+                + " maxDepth=" + maxDepth
+                + " wallMs=" + wallNanos / 1_000_000.0
+                + (timed ? " expansionMs=" + expansionNanos / 1_000_000.0
+                        + " hashingMs=" + hashingNanos / 1_000_000.0 : "");
+    }
+}
@@ -0,0 +1,23 @@
+package rushhour;
+
+/**
+ * how a search ended
+ */
+public enum SearchStatus {
+    SOLVED,             // a solution was found
+    UNSOLVABLE,         // every reachable board was tried, none is solved
+    TIME_LIMIT,         // SearchBudget wall-clock limit reached first
+    NODE_LIMIT,         // SearchBudget expanded-board limit reached first
+    MEMORY_LIMIT,       // SearchBudget visited-set memory limit reached first
+    CANCELLED,          // SearchBudget cancel flag set, e.g. another search of a portfolio won
+    DEPTH_LIMIT;        // solutions would be longer than the strategy looks for, e.g. IDA* past its maxMoves
+
+    /**
+     * check if the search was cut short by its budget or a limit of its own,
+     * i.e. it is not known whether the board can be solved
+     */
+    public boolean isBudgetExceeded() {
+        return this == TIME_LIMIT || this == NODE_LIMIT || this == MEMORY_LIMIT || this == CANCELLED
+                || this == DEPTH_LIMIT;
+    }
+}
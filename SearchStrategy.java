@@ -0,0 +1,38 @@
+package rushhour;
+
+/**
+ * a way of searching from a starting board to a solved board
+ * (xCar at the exit)
+ * strategies keep no state between searches, so one instance
+ * can be reused for many puzzles
+ */
+public interface SearchStrategy {
+    /**
+     * search for a sequence of moves that solves start, w/o limits
+     * @param start: board to solve, not modified
+     * @return result holding the solved board, or an unsolved result
+     */
+    default SearchResult search(Board start) {
+        return search(start, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * search for a sequence of moves that solves start, giving up once
+     * the budget runs out
+     * @param start: board to solve, not modified
+     * @param budget: limits on time, boards expanded and visited-set memory
+     * @return result holding the solved board, or an unsolved result whose
+     *         status says whether start is unsolvable or the budget ran out
+     */
+    SearchResult search(Board start, SearchBudget budget);
+
+    /**
+     * @return how the moves of a solution are counted
+     */
+    MoveMetric getMetric();
+
+    /**
+     * @return short name used in output, e.g. "bfs"
+     */
+    String getName();
+}
@@ -0,0 +1,90 @@
+package rushhour;
+
+/**
+ * parent links of a search, kept in primitive arrays indexed by node id
+ * each node is one board reached by the search, storing only the id of
+ * the board it came from and the packed Move that led to it
+ */
+public class SearchTree {
+    // parent of the root node
+    public static final int NO_PARENT = -1;
+
+    private int[] parents;
+    private int[] moves;
+    private int size;
+
+    /**
+     * default constructor
+     */
+    public SearchTree() {
+        this(1024);
+    }
+
+    /**
+     * constructor pre-sized for a number of nodes
+     * @param expected: nodes that can be added before the arrays grow
+     */
+    public SearchTree(int expected) {
+        parents = new int[Math.max(expected, 16)];
+        moves = new int[parents.length];
+        size = 0;
+    }
+
+    // getters
+    public int size() { return size; }
+    public int getParent(int id) { return parents[id]; }
+    public int getMove(int id) { return moves[id]; }
+
+    /**
+     * add the starting board of a search
+     * @return id of the root node
+     */
+    public int addRoot() {
+        return add(NO_PARENT, Move.NONE);
+    }
+
+    /**
+     * add a board reached by one move from a known node
+     * @param parent: id of the board the move was made from
+     * @param move: packed Move
+     * @return id of the new node
+     */
+    public int add(int parent, int move) {
+        if (size == parents.length) {
+            int length = parents.length * 2;
+            if (length < 0)
+                throw new IllegalStateException("search tree too large");
+            parents = java.util.Arrays.copyOf(parents, length);
+            moves = java.util.Arrays.copyOf(moves, length);
+        }
+        parents[size] = parent;
+        moves[size] = move;
+        return size++;
+    }
+
+    /**
+     * number of moves from the root to a node
+     */
+    public int getDepth(int id) {
+        int depth = 0;
+        for (int n = id; parents[n] != NO_PARENT; n = parents[n])
+            depth++;
+        return depth;
+    }
+
+    /**
+     * moves from the root to a node, walked iteratively
+     * so long solutions cannot overflow the stack
+     * @param id: node at the end of the path
+     * @return packed moves in the order they are made
+     */
+    public int[] getPath(int id) {
+        int[] path = new int[getDepth(id)];
+        int n = id;
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = moves[n];
+            n = parents[n];
+        }
+        return path;
+    }
+}
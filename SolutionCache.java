@@ -0,0 +1,279 @@
+package rushhour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * solutions of boards already solved, so repeated puzzles skip the search
+ * a board is named by its layout fingerprint and packed state, plus the
+ * name of the strategy that solved it, since e.g. step and slide
+ * solutions of the same board differ
+ *
+ * two tiers:
+ *   memory: up to maxEntries solutions, least recently used evicted first
+ *   disk (optional): every solution ever added, appended to one file that
+ *     is memory-mapped and indexed when the cache is opened, so it
+ *     survives restarts; a disk hit is copied back into memory
+ *
+ * only solved boards are stored. all methods are synchronized, so one
+ * cache can be shared by many solving threads
+ *
+ * file layout: MAGIC, then records of
+ *   puzzle key (long), state (long), move count (int), packed moves (int each)
+ */
+public class SolutionCache implements Closeable {
+    private static final int MAGIC = 0x52485331;        // "RHS1"
+    private static final int HEADER_BYTES = 4;
+    private static final int RECORD_HEADER_BYTES = 20;
+    private static final int NOT_ON_DISK = -1;
+
+    private final int maxEntries;
+    // access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<Key, int[]> memory = new LinkedHashMap<Key, int[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            if (size() <= maxEntries)
+                return false;
+            evictions++;
+            return true;
+        }
+    };
+    private final FileChannel channel;      // null if memory only
+    private MappedByteBuffer mapped;        // file as it was when opened
+    private LongIntMap diskIndex;           // key of a record -> its offset in the file
+    private long diskEnd;                   // where the next record is written
+
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * board + strategy a solution belongs to
+     */
+    private static final class Key {
+        final long puzzle;      // layout fingerprint mixed w/ strategy name
+        final long state;
+
+        Key(long puzzle, long state) {
+            this.puzzle = puzzle;
+            this.state = state;
+        }
+
+        // single long used to index the disk tier, checked against the record
+        long index() { return puzzle ^ state; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key k = (Key) other;
+            return puzzle == k.puzzle && state == k.state;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(index());
+        }
+    }
+
+    /**
+     * constructor for a memory only cache
+     * @param maxEntries: solutions kept before the least recently used is evicted
+     */
+    public SolutionCache(int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("cache needs at least 1 entry: " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.channel = null;
+    }
+
+    /**
+     * constructor for a cache backed by a file, created if missing
+     * existing records are memory-mapped and indexed now; a record cut
+     * short by a crash is dropped
+     * @param maxEntries: solutions kept in memory
+     * @param filename: cache file
+     */
+    public SolutionCache(int maxEntries, String filename) throws IOException {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("cache needs at least 1 entry: " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            load(filename);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * map the file and index every whole record in it
+     */
+    private void load(String filename) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("cache file too large: " + filename);
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(0, MAGIC);
+            channel.write(header, 0);
+            size = HEADER_BYTES;
+        }
+
+        if (size < HEADER_BYTES)
+            throw new IOException("not a solution cache: " + filename);
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (mapped.getInt(0) != MAGIC)
+            throw new IOException("not a solution cache: " + filename);
+
+        diskIndex = new LongIntMap();
+        int at = HEADER_BYTES;
+        while (at + RECORD_HEADER_BYTES <= size) {
+            int count = mapped.getInt(at + 16);
+            long end = at + RECORD_HEADER_BYTES + 4L * count;
+            if (count < 0 || end > size)
+                break;
+            diskIndex.put(mapped.getLong(at) ^ mapped.getLong(at + 8), at);
+            at = (int) end;
+        }
+        if (at < size) {
+            channel.truncate(at);
+            mapped.limit(at);       // records appended later are read from the channel
+        }
+        diskEnd = at;
+    }
+
+    /**
+     * key for a board solved by a strategy
+     */
+    private static Key keyOf(Board board, String strategy) {
+        long puzzle = board.getLayout().getFingerprint() ^ (strategy.hashCode() * 0x9E3779B97F4A7C15L);
+        return new Key(puzzle, board.getState());
+    }
+
+    /**
+     * stored solution of a board, w/o searching
+     * @param board: starting board
+     * @param strategy: name of the strategy whose solutions are wanted
+     * @return packed moves from board to the goal, or null on a miss
+     */
+    public synchronized int[] get(Board board, String strategy) throws IOException {
+        Key key = keyOf(board, strategy);
+        int[] moves = memory.get(key);
+        if (moves != null) {
+            memoryHits++;
+            return moves.clone();
+        }
+        if (channel != null) {
+            int offset = diskIndex.get(key.index(), NOT_ON_DISK);
+            moves = (offset == NOT_ON_DISK) ? null : readRecord(offset, key);
+            if (moves != null) {
+                diskHits++;
+                memory.put(key, moves);
+                return moves.clone();
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * read the moves of the record at offset, if it is for key
+     * records added since the file was opened are past the mapping
+     * and are read from the channel instead
+     */
+    private int[] readRecord(int offset, Key key) throws IOException {
+        ByteBuffer record = (offset < mapped.limit())
+                ? mapped.slice(offset, mapped.limit() - offset)
+                : read(offset, RECORD_HEADER_BYTES);
+        if (record.getLong(0) != key.puzzle || record.getLong(8) != key.state)
+            return null;
+
+        int[] moves = new int[record.getInt(16)];
+        if (record.limit() < RECORD_HEADER_BYTES + 4 * moves.length)
+            record = read(offset, RECORD_HEADER_BYTES + 4 * moves.length);
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = record.getInt(RECORD_HEADER_BYTES + 4 * i);
+        return moves;
+    }
+
+    /**
+     * read bytes of the file into a new buffer
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+                throw new IOException("cache file truncated at " + offset);
+        }
+        return buffer;
+    }
+
+    /**
+     * store the solution of a board
+     * @param board: starting board
+     * @param strategy: name of the strategy that found the solution
+     * @param moves: packed moves from board to the goal
+     */
+    public synchronized void put(Board board, String strategy, int[] moves) throws IOException {
+        Key key = keyOf(board, strategy);
+        memory.put(key, moves.clone());
+        if (channel == null || diskIndex.containsKey(key.index()))
+            return;
+
+        int length = RECORD_HEADER_BYTES + 4 * moves.length;
+        if (diskEnd + length > Integer.MAX_VALUE)
+            return;     // file full, keep the solution in memory only
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putLong(key.puzzle).putLong(key.state).putInt(moves.length);
+        for (int move : moves)
+            record.putInt(move);
+        record.flip();
+        long at = diskEnd;
+        while (record.hasRemaining())
+            at += channel.write(record, at);
+        diskIndex.put(key.index(), (int) diskEnd);
+        diskEnd = at;
+    }
+
+    // getters
+    public synchronized long getHits() { return memoryHits + diskHits; }
+    public synchronized long getMemoryHits() { return memoryHits; }
+    public synchronized long getDiskHits() { return diskHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getMemorySize() { return memory.size(); }
+    public synchronized int getDiskSize() { return (channel == null) ? 0 : diskIndex.size(); }
+    public int getMaxEntries() { return maxEntries; }
+
+    @Override
+    public synchronized String toString() {
+        return "hits=" + getHits()
+                + " memoryHits=" + memoryHits
+                + " diskHits=" + diskHits
+                + " misses=" + misses
+                + " evictions=" + evictions
+                + " memorySize=" + memory.size()
+                + " diskSize=" + getDiskSize();
+    }
+
+    /**
+     * flush records to disk and close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package rushhour;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one solve, so slow puzzles can be lined up
+ * against GC and other events in a recording
+ * enable w/ e.g. -XX:StartFlightRecording:settings=profile
+ */
+@Name("rushhour.Solve")
+@Label("Rush Hour Solve")
+@Category("Rush Hour")
+@Description("One puzzle solved by Solver")
+public class SolveEvent extends Event {
+    @Label("Puzzle")
+    public String puzzle;
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Solved")
+    public boolean solved;
+
+    @Label("Status")
+    @Description("SOLVED, UNSOLVABLE, or the budget limit that stopped the search")
+    public String status;
+
+    @Label("Moves")
+    public int moves;
+
+    @Label("Nodes Expanded")
+    public long nodesExpanded;
+
+    @Label("Nodes Generated")
+    public long nodesGenerated;
+
+    @Label("Duplicates Rejected")
+    public long duplicates;
+
+    @Label("Peak Frontier")
+    public int peakFrontier;
+
+    @Label("Peak Visited")
+    public int peakVisited;
+
+    @Label("Max Depth")
+    public int maxDepth;
+
+    /**
+     * fill in fields from a finished search and commit the event
+     * call end() first so the event's duration covers only the search
+     * @param puzzle: name of the puzzle, e.g. its file path
+     * @param result
+     */
+    public void commit(String puzzle, SearchResult result) {
+        if (!shouldCommit())
+            return;
+        SearchStats stats = result.getStats();
+        this.puzzle = puzzle;
+        this.strategy = result.getStrategyName();
+        this.solved = result.isSolved();
+        this.status = result.getStatus().name();
+        this.moves = result.getMoveCount();
+        this.nodesExpanded = stats.getNodesExpanded();
+        this.nodesGenerated = stats.getNodesGenerated();
+        this.duplicates = stats.getDuplicates();
+        this.peakFrontier = stats.getPeakFrontier();
+        this.peakVisited = stats.getPeakVisited();
+        this.maxDepth = stats.getMaxDepth();
+        commit();
+    }
+}
@@ -5,50 +5,67 @@ import java.io.*;
 
 public class Solver {
     private Board currentBoard;
-    private LinkedList<Board> boardQueue;
-//    private PriorityQueue<Board> boardQueue;
-//    private Comparator<Board> boardComparator;
-    private HashSet<Integer> seenBoards;
+    private StateQueue boardQueue;      // packed states, in the order added to tree
+    private LongHashSet seenBoards;     // packed states already queued
+    private SearchTree tree;            // moves that reached each queued board
+    private SearchStats stats;          // counters of the default search
+    private Relevance relevance;        // cars that can matter to xCar
+    private int[] cars;                 // cars whose moves are tried
+    private int depth;                  // depth of the boards now being expanded
+    private int layerLeft;              // boards of this depth still in the queue
+    private int nextLayer;              // boards of the next depth queued so far
+
+    // strategy name reported for the default search
+    public static final String DEFAULT_NAME = "default";
 
     /**
-     * comparator for priority queue
-     * for use with heuristic cost of boards
+     * constructor for stack of boards
+     * @param filename
      */
-    private class BoardComparator implements Comparator<Board> {
-        @Override
-        public int compare(Board x, Board y) {
-            return (int)(x.getHeurCost() - y.getHeurCost());    // returns int difference closest to 0
-        }
+    public Solver(String filename) {
+        this(filename, LongHashSet.DEFAULT_EXPECTED);
     }
 
     /**
-     * constructor for stack of boards
+     * constructor w/ visited set pre-sized for a puzzle's state count
      * @param filename
+     * @param expectedStates: states expected to be seen before solving
      */
-    public Solver(String filename) {
-        currentBoard = new Board(filename);
-        boardQueue = new LinkedList<Board>();
-//        boardComparator = new BoardComparator();
-//        boardQueue = new PriorityQueue<Board>(boardComparator);
-        boardQueue.addLast(currentBoard);
-//        boardQueue.add(currentBoard);
-        seenBoards = new HashSet<Integer>();
-        seenBoards.add(currentBoard.getHashNum());
+    public Solver(String filename, int expectedStates) {
+        this(new Board(filename), expectedStates);
+    }
+
+    /**
+     * constructor from an already-parsed board
+     * @param start: board to solve, not modified
+     * @param expectedStates: states expected to be seen before solving
+     */
+    public Solver(Board start, int expectedStates) {
+        currentBoard = new Board(start);
+        tree = new SearchTree();
+        currentBoard.setPathId(tree.addRoot());
+        boardQueue = new StateQueue();
+        boardQueue.addLast(currentBoard.getState());
+        seenBoards = new LongHashSet(expectedStates);
+        seenBoards.add(currentBoard.getState());
+        stats = new SearchStats();
+        stats.recordReached(0);
+        relevance = Relevance.analyze(currentBoard);
+        cars = relevance.getMovableCars();
+        depth = -1;
+        layerLeft = 0;
+        nextLayer = 1;
     }
 
+    // getters
+    public SearchStats getStats() { return stats; }
+
     /**
      * check if xCar is free to reach goal
      * @return true if there is a free path, false otherwise
      */
     private boolean canSolve() {
-        Car xCar = this.currentBoard.getCar('X');
-        int searchY = xCar.getY();
-
-        for (int i = xCar.getX() + xCar.getLength(); i < 6; i++) {
-            if (this.currentBoard.getCharBoard()[searchY][i] != '.')
-                return false;
-        }
-        return true;
+        return this.currentBoard.isExitClear();
     }
 
     /**
@@ -56,100 +73,277 @@ public class Solver {
      * @return true if so, false otherwise
      */
     private boolean isSolved() {
-        Car xCar = this.currentBoard.getCar('X');
-        return xCar.getX() == 4;
+        return this.currentBoard.isSolved();
     }
 
+    /**
+     * queue every unseen board one move away from currentBoard
+     * moves are checked and hashed against currentBoard in place,
+     * only the packed state of a new successor is queued
+     */
     private void findAllNext() {
-        // make all possible moves w/ all cars, add to stack
-        for (Car c : this.currentBoard.getListOfCars()) {
-            Board tempFor = new Board(this.currentBoard);      // deep copy of board
-            Car carCpyFor = tempFor.getCar(c.getName());       // car in currentBoard as same car in temp
-
-            tempFor = tempFor.attemptMove(carCpyFor, Board.FORWARD);        // attempt move forwards
-            if (tempFor != null && !(this.seenBoards.contains(tempFor.getHashNum()))) {
-                this.boardQueue.addLast(tempFor);
-//                this.boardQueue.add(tempFor);
-                this.seenBoards.add(tempFor.getHashNum());
-            }
+        this.stats.recordExpanded();
+        long expandStart = this.stats.clock();
 
-            Board tempBack = new Board(this.currentBoard);                  // recreate deep copy
-            Car carCpyBack = tempBack.getCar(c.getName());
-            tempBack = tempBack.attemptMove(carCpyBack, Board.BACKWARD);    // attempt move backwards
-            if (tempBack != null && !(this.seenBoards.contains(tempBack.getHashNum()))) {
-                this.boardQueue.addLast(tempBack);
-//                this.boardQueue.add(tempBack);
-                this.seenBoards.add(tempBack.getHashNum());
+        // make all possible moves w/ all relevant cars, add to queue
+        for (int c : this.cars) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                if (!this.currentBoard.canMove(c, dir))
+                    continue;
+                this.stats.recordGenerated();
+                long hashStart = this.stats.clock();
+                long next = this.currentBoard.getStateAfterMove(c, dir);
+                boolean isNew = this.seenBoards.add(next);
+                this.stats.addHashingTime(hashStart);
+
+                if (isNew) {
+                    this.tree.add(this.currentBoard.getPathId(), Move.encode(c, dir, 1));
+                    this.boardQueue.addLast(next);
+                    this.stats.recordReached(this.depth + 1);
+                    this.nextLayer++;
+                } else {
+                    this.stats.recordDuplicate();
+                }
             }
         }
+        this.stats.addExpansionTime(expandStart);
+        this.stats.updatePeaks(this.boardQueue.size(), this.seenBoards.size());
     }
 
-    public static void solveFromFile(String input, String output) {
+    /**
+     * copy of currentBoard w/ a legal move made, recorded in the search tree
+     * @param index: car to move
+     * @param dir: backward or forward (-/+ 1)
+     * @return new board
+     */
+    private Board makeChild(int index, int dir) {
+        Board next = new Board(this.currentBoard).attemptMove(index, dir);
+        next.setPathId(this.tree.add(this.currentBoard.getPathId(), Move.encode(index, dir, 1)));
+        return next;
+    }
+
+    /**
+     * take the next board off the queue and queue its unseen successors
+     * @return false if the queue was already empty
+     */
+    public boolean step() {
+        if (this.boardQueue.isEmpty())
+            return false;
+        if (this.layerLeft == 0) {
+            // first board of the next depth
+            this.depth++;
+            this.layerLeft = this.nextLayer;
+            this.nextLayer = 0;
+        }
+        // the n-th state dequeued is tree node n
+        this.currentBoard.loadState(this.boardQueue.removeFirst());
+        this.currentBoard.setPathId((int) this.boardQueue.getRemoved() - 1);
+        this.layerLeft--;
+        findAllNext();
+        return true;
+    }
+
+    /**
+     * solve w/ the default search: BFS until xCar has a free path,
+     * then slide it out
+     * @param input: path to board file
+     * @param output: path the list of moves is written to
+     * @return result of the search, w/ its stats
+     */
+    public static SearchResult solveFromFile(String input, String output) {
+        return solveFromFile(input, output, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * solve w/ the default search, giving up once the budget runs out
+     * the BFS covers every board reachable from the start, so if it runs
+     * out of boards the puzzle is proven unsolvable
+     * @param input: path to board file
+     * @param output: path the list of moves is written to
+     * @param budget: limits on time, boards expanded and visited-set memory
+     * @return result of the search, w/ its status and stats
+     */
+    public static SearchResult solveFromFile(String input, String output, SearchBudget budget) {
         Solver solution = new Solver(input);
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        solution.stats.start();
 
         /**
         System.out.println("INITIAL BOARD:");
-        for (int i = 0; i < Board.SIZE; i++) {
-            for (int j = 0; j < Board.SIZE; j++) {
-                System.out.printf(solution.currentBoard.getCharBoard()[i][j] + " ");
+        char[][] grid = solution.currentBoard.getCharBoard();
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid[i].length; j++) {
+                System.out.printf(grid[i][j] + " ");
             }
             System.out.println();
         }
         System.out.println();
          */
 
-        while (!solution.canSolve() && !(solution.boardQueue.isEmpty())) {
-            // remove board from queue
-            solution.currentBoard = solution.boardQueue.removeFirst();
-            // remove board from priority queue
-//            solution.currentBoard = solution.boardQueue.remove();
-            solution.findAllNext();
+        SearchStatus status = SearchStatus.UNSOLVABLE;
+        boolean trivial = solution.relevance.isTriviallyUnsolvable() && !solution.canSolve();
+        while (!trivial && !solution.canSolve()) {
+            SearchStatus over = budget.check(solution.stats, solution.seenBoards.getMemoryBytes());
+            if (over != null) {
+                status = over;
+                break;
+            }
+            if (!solution.step())
+                break;      // every reachable board was tried
         }
 
         if (!solution.canSolve()) {
-            // try a second time using last result
-            solution.boardQueue = new LinkedList<Board>();
-            solution.boardQueue.addLast(solution.currentBoard);
-            solution.seenBoards = new HashSet<Integer>();
-            solution.seenBoards.add(solution.currentBoard.getHashNum());
-
-            while (!solution.canSolve() && !(solution.boardQueue.isEmpty())) {
-                // remove board from queue
-                solution.currentBoard = solution.boardQueue.removeFirst();
-                // remove board from priority queue
-//            solution.currentBoard = solution.boardQueue.remove();
-                solution.findAllNext();
-            }
+            solution.stats.stop();
+            event.end();
+            SearchResult result = new SearchResult(null, null, solution.stats, DEFAULT_NAME, status);
+            event.commit(input, result);
 
-            if (!solution.canSolve()) {
-                System.out.println("cannot find solution for " + input);
-                System.out.println("UNFINISHED BOARD for " + input + ":");
-                for (int i = 0; i < Board.SIZE; i++) {
-                    for (int j = 0; j < Board.SIZE; j++) {
-                        System.out.printf(solution.currentBoard.getCharBoard()[i][j] + " ");
-                    }
-                    System.out.println();
-                }
+            if (status.isBudgetExceeded()) {
+                System.out.println("gave up on " + input + ": " + status + " (" + budget + ")");
+                System.out.println(solution.stats);
+                return result;
             }
-            else {
-                solution.finishSolve(input, output);
+            if (trivial) {
+                System.out.println("cannot find solution for " + input + ": "
+                        + solution.relevance.getUnsolvableReason());
+                return result;
             }
+            System.out.println("cannot find solution for " + input);
+            System.out.println("UNFINISHED BOARD for " + input + ":");
+            char[][] grid = solution.currentBoard.getCharBoard();
+            for (int i = 0; i < grid.length; i++) {
+                for (int j = 0; j < grid[i].length; j++) {
+                    System.out.printf(grid[i][j] + " ");
+                }
+                System.out.println();
+            }
+            return result;
         }
-        else {
-            solution.finishSolve(input, output);
+
+        solution.stats.stop();
+        event.end();
+        solution.finishSolve(input, output);
+        int[] moves = solution.tree.getPath(solution.currentBoard.getPathId());
+        SearchResult result = new SearchResult(solution.currentBoard, moves, solution.stats, DEFAULT_NAME);
+        event.commit(input, result);
+        return result;
+    }
+
+    /**
+     * solve w/ the default search, unless the cache already holds a solution
+     * of this board; solutions found are added to the cache
+     * @param input: path to board file
+     * @param output: path the list of moves is written to
+     * @param cache: solutions of earlier calls
+     * @return result of the search, or of the cache hit w/ 0 nodes expanded
+     */
+    public static SearchResult solveFromFile(String input, String output, SolutionCache cache) throws IOException {
+        Board start = new Board(input);
+        int[] moves = cache.get(start, DEFAULT_NAME);
+        if (moves == null) {
+            SearchResult result = solveFromFile(input, output);
+            if (result.isSolved())
+                cache.put(start, DEFAULT_NAME, result.getMoves());
+            return result;
         }
+
+        SearchStats stats = new SearchStats();
+        stats.start();
+        Solver solution = new Solver(start, 16);
+        for (int m : moves)
+            solution.currentBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+        stats.stop();
+        solution.writeSolution(input, output, moves);
+        return new SearchResult(solution.currentBoard, moves, stats, DEFAULT_NAME);
+    }
+
+    /**
+     * solve w/ a chosen search strategy instead of the default search
+     * @param input: path to board file
+     * @param output: path the list of moves is written to
+     * @param strategy: e.g. new BfsStrategy(), or new AStarStrategy(new BlockerChainHeuristic())
+     * @return result of the search, w/ its stats
+     */
+    public static SearchResult solveFromFile(String input, String output, SearchStrategy strategy) {
+        return solveFromFile(input, output, strategy, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * solve w/ a chosen search strategy, giving up once the budget runs out
+     * @param input: path to board file
+     * @param output: path the list of moves is written to
+     * @param strategy: e.g. new BfsStrategy(), or new AStarStrategy(new BlockerChainHeuristic())
+     * @param budget: limits on time, boards expanded and visited-set memory
+     * @return result of the search, w/ its status and stats
+     */
+    public static SearchResult solveFromFile(String input, String output, SearchStrategy strategy,
+            SearchBudget budget) {
+        Solver solution = new Solver(input);
+        SearchResult result = search(input, solution.currentBoard, strategy, budget);
+
+        if (result.getStatus().isBudgetExceeded()) {
+            System.out.println("gave up on " + input + ": " + result.getStatus() + " (" + budget + ")");
+            System.out.println(result.getStats());
+            return result;
+        }
+        if (!result.isSolved()) {
+            System.out.println("cannot find solution for " + input);
+            return result;
+        }
+        solution.currentBoard = result.getFinalBoard();
+        solution.writeSolution(input, output, result.getMoves());
+        return result;
+    }
+
+    /**
+     * run a strategy on a parsed board, recorded as a JFR SolveEvent
+     * @param puzzle: name of the puzzle for the event, e.g. its file path
+     * @param board: board to solve, not modified
+     * @param strategy
+     * @return result of the search
+     */
+    public static SearchResult search(String puzzle, Board board, SearchStrategy strategy) {
+        return search(puzzle, board, strategy, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * run a strategy on a parsed board under a budget, recorded as a JFR SolveEvent
+     * @param puzzle: name of the puzzle for the event, e.g. its file path
+     * @param board: board to solve, not modified
+     * @param strategy
+     * @param budget: limits on time, boards expanded and visited-set memory
+     * @return result of the search
+     */
+    public static SearchResult search(String puzzle, Board board, SearchStrategy strategy, SearchBudget budget) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SearchResult result = strategy.search(board, budget);
+        event.end();
+        event.commit(puzzle, result);
+        return result;
     }
 
     public void finishSolve(String input, String output) {
         /**
          * xCar must have free path,
-         * move the car over to the goal
+         * move the car over to the goal, toward whichever edge the exit is on
          */
+        int exitDir = this.currentBoard.getLayout().getGeometry().getExitDir();
         while (!this.isSolved()) {
-            Car xCar = this.currentBoard.getCar('X');
-            this.currentBoard = this.currentBoard.attemptMove(xCar, Board.FORWARD);
+            int xIndex = this.currentBoard.getLayout().getXIndex();
+            this.currentBoard = makeChild(xIndex, exitDir);
         }
+        writeSolution(input, output, this.tree.getPath(this.currentBoard.getPathId()));
+    }
 
+    /**
+     * write moves that reached currentBoard, then print it
+     * @param input: path to board file, used in printout
+     * @param output: path the list of moves is written to
+     * @param moves: packed moves that reached currentBoard
+     */
+    private void writeSolution(String input, String output, int[] moves) {
         /**
          * take currentBoard, output list of moves to get there
          * write to output file
@@ -157,7 +351,7 @@ public class Solver {
         try {
             File fout = new File(output);
             PrintWriter boardWriter = new PrintWriter(fout);
-            Board.printMovesToFile(boardWriter, this.currentBoard.getLastMoveNode());
+            Board.printMovesToFile(boardWriter, this.currentBoard.getLayout(), moves);
             boardWriter.flush();
             boardWriter.close();
         } catch (Exception e) {
@@ -166,9 +360,10 @@ public class Solver {
 
 
         System.out.println("FINAL BOARD for " + input + ":");
-        for (int i = 0; i < Board.SIZE; i++) {
-            for (int j = 0; j < Board.SIZE; j++) {
-                System.out.printf(this.currentBoard.getCharBoard()[i][j] + " ");
+        char[][] grid = this.currentBoard.getCharBoard();
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid[i].length; j++) {
+                System.out.printf(grid[i][j] + " ");
             }
             System.out.println();
         }
@@ -0,0 +1,404 @@
+package rushhour;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * long-running solver listening on a local HTTP port, so solves skip JVM
+ * startup and run on warm, JIT-compiled code
+ *
+ * endpoints:
+ *   POST /solve[?timeout=ms]  body is a board in the board file format; 0 = no timeout, at most MAX_TIMEOUT_MS
+ *       200: moves, one per line as in Board.printMovesToFile
+ *       400: body is not a valid board
+ *       413: body is longer than MAX_BODY_BYTES
+ *       422: board cannot be solved
+ *       503: search queue is full, try again later
+ *       504: timeout ran out first
+ *     the X-Status header holds the SearchStatus, X-Moves the move count
+ *   GET /health   "ok"
+ *   GET /metrics  counters and latency percentiles, one "name value" per line
+ *
+ * requests are read by a pool of handler threads that only parse and wait;
+ * searches run on a separate fixed pool of searchThreads w/ a bounded
+ * queue, so load never puts more searches on the CPU than it has cores.
+ * a request's timeout counts from when it arrives, time spent queued
+ * included, and is passed to the search as a SearchBudget
+ */
+public class SolverService {
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_TIMEOUT_MS = 2000;
+    // longer timeouts are cut to this, so the deadline in nanoseconds can't overflow
+    public static final long MAX_TIMEOUT_MS = TimeUnit.DAYS.toMillis(1);
+    // longest request body read, far more than the largest board (9 rows of 9 cells + exit line)
+    public static final int MAX_BODY_BYTES = 4096;
+
+    // easy board solved a few thousand times at startup to warm up the JIT
+    private static final String WARMUP_BOARD = "AABGCC\nDDBG..\n..XXEO\nPQQQEO\nPF.HHO\nPF..II\n";
+
+    static {
+        // the JDK server leaves Nagle's algorithm on, which holds back each
+        // small response until the client's delayed ack, ~40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers;     // read requests and wait on searches
+    private final ThreadPoolExecutor searches;  // run searches, bounded
+    private final SearchStrategy strategy;
+    private final long defaultTimeoutMs;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong unsolvable = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong badRequests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * solve latencies bucketed by powers of 2 nanoseconds,
+     * precise enough for percentiles w/o keeping every sample
+     */
+    private static class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(nanos, 1)) - 1);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * upper bound of the bucket holding a percentile
+         * @param percentile: in (0, 100]
+         * @return nanoseconds, 0 if nothing was recorded
+         */
+        long percentile(double percentile) {
+            long total = count.get();
+            if (total == 0)
+                return 0;
+            long wanted = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int b = 0; b < 64; b++) {
+                seen += buckets.get(b);
+                if (seen >= wanted)
+                    return (b >= 62) ? Long.MAX_VALUE : (2L << b) - 1;
+            }
+            return maxNanos.get();
+        }
+    }
+
+    /**
+     * constructor, binds to the loopback address but does not start
+     * @param port: 0 picks a free port, see getPort()
+     * @param searchThreads: searches run at once
+     * @param queueSize: searches waiting before requests get 503
+     * @param strategy: shared by all searches, e.g. a CachingStrategy
+     * @param defaultTimeoutMs: timeout of requests w/o one, 0 for none
+     */
+    public SolverService(int port, int searchThreads, int queueSize, SearchStrategy strategy,
+            long defaultTimeoutMs) throws IOException {
+        if (searchThreads < 1 || queueSize < 1)
+            throw new IllegalArgumentException("need searchThreads >= 1 and queueSize >= 1");
+        this.strategy = strategy;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.searches = new ThreadPoolExecutor(searchThreads, searchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadPoolExecutor.AbortPolicy());
+        // handlers mostly wait, so allow every search slot and queue entry one
+        this.handlers = Executors.newFixedThreadPool(searchThreads + queueSize);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/health", exchange -> respond(exchange, 200, "ok\n"));
+        server.createContext("/metrics", exchange -> respond(exchange, 200, metrics()));
+    }
+
+    // getters
+    public int getPort() { return server.getAddress().getPort(); }
+    public long getRequests() { return requests.get(); }
+
+    /**
+     * start accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * stop accepting requests, let those in flight finish for up to delay seconds
+     */
+    public void stop(int delaySeconds) throws InterruptedException {
+        server.stop(delaySeconds);
+        searches.shutdown();
+        handlers.shutdown();
+        searches.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        handlers.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * solve a small board many times so the search code is compiled
+     * before the first real request
+     * @param rounds
+     */
+    public void warmUp(int rounds) {
+        // go around the cache, or only the cache lookup gets warm
+        SearchStrategy search = (strategy instanceof CachingStrategy)
+                ? ((CachingStrategy) strategy).getStrategy() : strategy;
+        Board board = Board.parse(WARMUP_BOARD);
+        for (int i = 0; i < rounds; i++)
+            search.search(board);
+    }
+
+    /**
+     * POST /solve
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long arrived = System.nanoTime();
+        requests.incrementAndGet();
+        inFlight.incrementAndGet();
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                badRequests.incrementAndGet();
+                respond(exchange, 405, "POST a board\n");
+                return;
+            }
+
+            Board board;
+            long timeoutMs;
+            try (InputStream in = exchange.getRequestBody()) {
+                // one byte past the cap tells a body that fits from one that was cut off
+                byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (body.length > MAX_BODY_BYTES) {
+                    badRequests.incrementAndGet();
+                    respond(exchange, 413, "board longer than " + MAX_BODY_BYTES + " bytes\n");
+                    return;
+                }
+                board = Board.parse(new String(body, StandardCharsets.UTF_8));
+                timeoutMs = timeoutOf(exchange);
+            } catch (IllegalArgumentException e) {
+                badRequests.incrementAndGet();
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            long deadline = (timeoutMs == 0) ? Long.MAX_VALUE
+                    : arrived + TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMs, MAX_TIMEOUT_MS));
+            Future<SearchResult> future;
+            try {
+                future = searches.submit(() -> solve(board, deadline));
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                respond(exchange, 503, "busy\n");
+                return;
+            }
+
+            SearchResult result;
+            try {
+                result = (deadline == Long.MAX_VALUE) ? future.get()
+                        : future.get(Math.max(0, deadline - System.nanoTime()) + 50_000_000, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // the search stops itself at the deadline, this only catches one stuck in the queue
+                future.cancel(false);
+                timedOut.incrementAndGet();
+                exchange.getResponseHeaders().set("X-Status", SearchStatus.TIME_LIMIT.name());
+                respond(exchange, 504, "timeout\n");
+                return;
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+                respond(exchange, 500, "search failed: " + e.getCause() + "\n");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.incrementAndGet();
+                respond(exchange, 500, "interrupted\n");
+                return;
+            }
+            respondWithResult(exchange, board, result);
+        } finally {
+            latency.record(System.nanoTime() - arrived);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * run one search w/ whatever time is left before the deadline
+     */
+    private SearchResult solve(Board board, long deadline) {
+        long timeLeft = 0;
+        if (deadline != Long.MAX_VALUE) {
+            timeLeft = (deadline - System.nanoTime()) / 1_000_000;
+            if (timeLeft <= 0)
+                return SearchResult.overBudget(new SearchStats(), strategy.getName(), SearchStatus.TIME_LIMIT);
+        }
+        return Solver.search("service", board, strategy, new SearchBudget(timeLeft, 0, 0));
+    }
+
+    /**
+     * write the moves of a finished search, or why there are none
+     */
+    private void respondWithResult(HttpExchange exchange, Board board, SearchResult result) throws IOException {
+        exchange.getResponseHeaders().set("X-Status", result.getStatus().name());
+        if (result.getStatus().isBudgetExceeded()) {
+            timedOut.incrementAndGet();
+            respond(exchange, 504, result.getStatus().name().toLowerCase() + "\n");
+            return;
+        }
+        if (!result.isSolved()) {
+            unsolvable.incrementAndGet();
+            respond(exchange, 422, "unsolvable\n");
+            return;
+        }
+
+        solved.incrementAndGet();
+        StringWriter text = new StringWriter();
+        PrintWriter writer = new PrintWriter(text);
+        Board.printMovesToFile(writer, board.getLayout(), result.getMoves());
+        writer.flush();
+        exchange.getResponseHeaders().set("X-Moves", String.valueOf(result.getMoveCount()));
+        respond(exchange, 200, text.toString());
+    }
+
+    /**
+     * timeout=ms from the query string, or the default
+     */
+    private long timeoutOf(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("timeout=")) {
+                    long ms = Long.parseLong(param.substring("timeout=".length()));
+                    if (ms < 0)
+                        throw new IllegalArgumentException("timeout must not be negative");
+                    return ms;
+                }
+            }
+        }
+        return defaultTimeoutMs;
+    }
+
+    /**
+     * send a plain text response and close the exchange
+     */
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * GET /metrics
+     */
+    private String metrics() {
+        StringBuilder text = new StringBuilder();
+        text.append("requests ").append(requests.get()).append('\n');
+        text.append("solved ").append(solved.get()).append('\n');
+        text.append("unsolvable ").append(unsolvable.get()).append('\n');
+        text.append("timed_out ").append(timedOut.get()).append('\n');
+        text.append("bad_requests ").append(badRequests.get()).append('\n');
+        text.append("rejected ").append(rejected.get()).append('\n');
+        text.append("failed ").append(failed.get()).append('\n');
+        text.append("in_flight ").append(inFlight.get()).append('\n');
+        text.append("search_queue ").append(searches.getQueue().size()).append('\n');
+        text.append("search_active ").append(searches.getActiveCount()).append('\n');
+        text.append("latency_count ").append(latency.count.get()).append('\n');
+        text.append("latency_mean_us ").append(latency.count.get() == 0 ? 0
+                : latency.totalNanos.get() / latency.count.get() / 1000).append('\n');
+        text.append("latency_p50_us ").append(latency.percentile(50) / 1000).append('\n');
+        text.append("latency_p99_us ").append(latency.percentile(99) / 1000).append('\n');
+        text.append("latency_max_us ").append(latency.maxNanos.get() / 1000).append('\n');
+        SearchStrategy search = strategy;
+        if (search instanceof CachingStrategy) {
+            SolutionCache cache = ((CachingStrategy) search).getCache();
+            text.append("cache_hits ").append(cache.getHits()).append('\n');
+            text.append("cache_misses ").append(cache.getMisses()).append('\n');
+            text.append("cache_evictions ").append(cache.getEvictions()).append('\n');
+            search = ((CachingStrategy) search).getStrategy();
+        }
+        if (search instanceof PortfolioStrategy) {
+            PortfolioStrategy portfolio = (PortfolioStrategy) search;
+            for (int i = 0; i < portfolio.getNumStrategies(); i++) {
+                text.append("portfolio_wins_").append(portfolio.getStrategy(i).getName())
+                        .append(' ').append(portfolio.getWins(i)).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * command line entry point
+     * usage: SolverService [-port n] [-threads n] [-queue n] [-timeout ms] [-cache entries] [-portfolio on]
+     * -portfolio on races BFS, A* and bidirectional BFS on every board, each
+     * search then takes up to 3 cores, so -threads should be about cores / 3
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 0;
+        long timeout = DEFAULT_TIMEOUT_MS;
+        int cacheEntries = 0;
+        boolean portfolio = false;
+        for (int at = 0; at < args.length; at += 2) {
+            if (at + 1 >= args.length) {
+                System.out.println("usage: SolverService [-port n] [-threads n] [-queue n] [-timeout ms] [-cache entries]"
+                        + " [-portfolio on]");
+                return;
+            }
+            switch (args[at]) {
+                case "-port": port = Integer.parseInt(args[at + 1]); break;
+                case "-threads": threads = Integer.parseInt(args[at + 1]); break;
+                case "-queue": queue = Integer.parseInt(args[at + 1]); break;
+                case "-timeout": timeout = Long.parseLong(args[at + 1]); break;
+                case "-cache": cacheEntries = Integer.parseInt(args[at + 1]); break;
+                case "-portfolio": portfolio = args[at + 1].equals("on"); break;
+                default:
+                    System.out.println("usage: SolverService [-port n] [-threads n] [-queue n] [-timeout ms] [-cache entries]"
+                        + " [-portfolio on]");
+                    return;
+            }
+        }
+
+        SearchStrategy strategy = new AStarStrategy(new BlockerChainHeuristic());
+        if (portfolio)
+            strategy = new PortfolioStrategy(new BfsStrategy(), strategy, new BidirectionalBfsStrategy());
+        if (cacheEntries > 0)
+            strategy = new CachingStrategy(strategy, new SolutionCache(cacheEntries));
+        SolverService service = new SolverService(port, threads, (queue > 0) ? queue : 16 * threads,
+                strategy, timeout);
+        service.warmUp(5000);
+        service.start();
+        System.out.println("listening on 127.0.0.1:" + service.getPort());
+    }
+}
@@ -0,0 +1,82 @@
+package rushhour;
+
+import java.util.NoSuchElementException;
+
+/**
+ * first-in first-out queue of packed states, in a ring buffer that grows
+ * by doubling
+ * a queued state costs 8 bytes, where a queued Board costs its grid,
+ * positions and a list node; boards are rebuilt from the state w/
+ * Board.loadState() when they are dequeued
+ */
+public class StateQueue {
+    private long[] states;
+    private int head;           // slot of the first state
+    private int size;
+    private long removed;       // states dequeued so far
+
+    /**
+     * default constructor
+     */
+    public StateQueue() {
+        this(1024);
+    }
+
+    /**
+     * constructor pre-sized for a number of states
+     * @param expected: states that can be queued before the buffer grows
+     */
+    public StateQueue(int expected) {
+        states = new long[Integer.highestOneBit(Math.max(expected, 16) - 1) << 1];
+        head = 0;
+        size = 0;
+        removed = 0;
+    }
+
+    // getters
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int capacity() { return states.length; }
+    public long getMemoryBytes() { return 8L * states.length; }
+    public long getRemoved() { return removed; }
+
+    /**
+     * add a state to the back of the queue
+     * @param state: packed state
+     */
+    public void addLast(long state) {
+        if (size == states.length)
+            grow();
+        states[(head + size) & (states.length - 1)] = state;
+        size++;
+    }
+
+    /**
+     * take the state at the front of the queue
+     * @return packed state
+     */
+    public long removeFirst() {
+        if (size == 0)
+            throw new NoSuchElementException("state queue is empty");
+        long state = states[head];
+        head = (head + 1) & (states.length - 1);
+        size--;
+        removed++;
+        return state;
+    }
+
+    /**
+     * double the buffer, unwrapping the queue to start at slot 0
+     */
+    private void grow() {
+        int length = states.length * 2;
+        if (length < 0)
+            throw new IllegalStateException("state queue too large");
+        long[] grown = new long[length];
+        int tail = states.length - head;
+        System.arraycopy(states, head, grown, 0, tail);
+        System.arraycopy(states, 0, grown, tail, head);
+        states = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package rushhour;
+
+/**
+ * thread-safe map from packed states to ints, split into stripes that are
+ * each a LongIntMap behind their own lock, so threads adding different
+ * states rarely wait on each other
+ */
+public class StripedStateMap {
+    private final LongIntMap[] stripes;
+    private final int shift;        // 64 - log2(stripes)
+
+    /**
+     * constructor
+     * @param stripeCount: rounded up to a power of 2
+     * @param expected: states expected in total, spread over the stripes
+     */
+    public StripedStateMap(int stripeCount, int expected) {
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new LongIntMap[n];
+        for (int i = 0; i < n; i++)
+            stripes[i] = new LongIntMap(Math.max(16, expected / n));
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * stripe of a state, taken from the high bits of a multiplicative hash
+     * so it is independent of the slot LongIntMap picks inside the stripe
+     */
+    private LongIntMap stripeOf(long state) {
+        return stripes[(int) ((state * 0x9E3779B97F4A7C15L) >>> shift)];
+    }
+
+    /**
+     * store value for state unless state is already present
+     * @param state
+     * @param value
+     * @return true if state was new
+     */
+    public boolean putIfAbsent(long state, int value) {
+        LongIntMap stripe = stripeOf(state);
+        synchronized (stripe) {
+            if (stripe.containsKey(state))
+                return false;
+            stripe.put(state, value);
+            return true;
+        }
+    }
+
+    /**
+     * value stored for state
+     * @param state
+     * @param missing: returned if state is not in map
+     */
+    public int get(long state, int missing) {
+        LongIntMap stripe = stripeOf(state);
+        synchronized (stripe) {
+            return stripe.get(state, missing);
+        }
+    }
+
+    /**
+     * bytes held by the tables of all stripes
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (LongIntMap stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.getMemoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * total states over all stripes
+     * only exact while no thread is adding
+     */
+    public int size() {
+        int size = 0;
+        for (LongIntMap stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,122 @@
+package rushhour;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * answers boards from prebuilt DistanceTables, w/o searching
+ * boards not in any table are handed to a fallback strategy
+ * tables are added before searching starts, after that the strategy
+ * is read-only and can be shared by many threads
+ */
+public class TableStrategy implements SearchStrategy {
+    // file name ending of saved tables
+    public static final String TABLE_SUFFIX = ".table";
+
+    private final MoveMetric metric;
+    private final SearchStrategy fallback;
+    // tables by what kinds of cars they hold, see kindsOf()
+    private final HashMap<Long, List<DistanceTable>> tables = new HashMap<Long, List<DistanceTable>>();
+
+    /**
+     * constructor
+     * @param metric: only tables built in this metric are used
+     * @param fallback: strategy for boards w/o a table, should use the same metric
+     */
+    public TableStrategy(MoveMetric metric, SearchStrategy fallback) {
+        this.metric = metric;
+        this.fallback = fallback;
+    }
+
+    // getters
+    public SearchStrategy getFallback() { return fallback; }
+
+    /**
+     * number of tables that can be used
+     */
+    public int getTableCount() {
+        int count = 0;
+        for (List<DistanceTable> list : tables.values())
+            count += list.size();
+        return count;
+    }
+
+    /**
+     * add a table, ignored if it was built in another metric
+     */
+    public void addTable(DistanceTable table) {
+        if (table.getMetric() != metric)
+            return;
+        tables.computeIfAbsent(kindsOf(table.getLayout()), k -> new ArrayList<DistanceTable>()).add(table);
+    }
+
+    /**
+     * load every saved table (*.table) in a directory
+     * @param directory
+     * @return number of tables loaded
+     */
+    public int loadTables(String directory) throws IOException {
+        int loaded = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "*" + TABLE_SUFFIX)) {
+            for (Path file : files) {
+                DistanceTable table = DistanceTable.load(file.toString());
+                if (table.getMetric() == metric) {
+                    addTable(table);
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * order-free hash of the cars of a layout, so a board finds the tables
+     * w/ the same cars even if its file lists them differently
+     */
+    private static long kindsOf(CarLayout layout) {
+        long sum = 0;
+        for (int i = 0; i < layout.getNumCars(); i++) {
+            long kind = layout.getDir(i) * 1_000_003L + layout.getLane(i) * 1009L + layout.getLength(i)
+                    + ((i == layout.getXIndex()) ? 7_919_000_000L : 0);
+            sum += kind * 0x9E3779B97F4A7C15L ^ (kind >>> 7);
+        }
+        return sum;
+    }
+
+    @Override
+    public SearchResult search(Board start, SearchBudget budget) {
+        List<DistanceTable> candidates = tables.get(kindsOf(start.getLayout()));
+        if (candidates != null) {
+            for (DistanceTable table : candidates) {
+                if (!table.contains(start))
+                    continue;
+                SearchStats stats = new SearchStats();
+                stats.start();
+                int[] moves = table.solve(start);
+                if (moves == null) {
+                    stats.stop();
+                    return new SearchResult(null, null, stats, getName());
+                }
+                Board finalBoard = new Board(start);
+                for (int m : moves)
+                    finalBoard.makeMove(Move.getCar(m), Move.getDir(m), Move.getDistance(m));
+                stats.addExpanded(moves.length);
+                stats.stop();
+                return new SearchResult(finalBoard, moves, stats, getName());
+            }
+        }
+        return fallback.search(start, budget);
+    }
+
+    @Override
+    public MoveMetric getMetric() { return metric; }
+
+    @Override
+    public String getName() { return "table" + metric.suffix(); }
+}
@@ -0,0 +1,53 @@
+package rushhour.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.Board;
+import rushhour.Solver;
+
+/**
+ * Solver.findAllNext, one op = one board expanded (Solver.step())
+ * throughput is nodes/sec; run w/ -prof gc for bytes allocated per node
+ * (gc.alloc.rate.norm). once the whole cluster is expanded the solver is
+ * rebuilt from the starting board, which is amortized over the cluster
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpansionBenchmark {
+    @Param({"easy-06", "medium-20", "c25-52", "d35-63", "hard-67"})
+    public String puzzle;
+
+    private Board start;
+    private Solver solver;
+
+    @Setup
+    public void setup() {
+        start = Puzzles.load(puzzle);
+        solver = new Solver(start, 1024);
+    }
+
+    @Benchmark
+    public boolean expandNode() {
+        if (!solver.step()) {
+            solver = new Solver(start, 1024);
+            return solver.step();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package rushhour.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rushhour.Board;
+
+/**
+ * move generation and hashing for every car of one board, both directions
+ * one op = all 2 * cars candidate moves of the puzzle's starting board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+    @Param({"easy-06", "medium-20", "c25-52", "d35-63", "hard-67"})
+    public String puzzle;
+
+    private Board board;
+    private byte[] positions;
+
+    @Setup
+    public void setup() {
+        board = Puzzles.load(puzzle);
+        positions = new byte[board.getNumCars()];
+        for (int c = 0; c < positions.length; c++)
+            positions[c] = (byte) board.getPosition(c);
+    }
+
+    /**
+     * copy the board, then try the move on the copy
+     */
+    @Benchmark
+    public void attemptMoveOnCopy(Blackhole bh) {
+        for (int c = 0; c < board.getNumCars(); c++) {
+            bh.consume(new Board(board).attemptMove(c, Board.FORWARD));
+            bh.consume(new Board(board).attemptMove(c, Board.BACKWARD));
+        }
+    }
+
+    /**
+     * check the move against the board, make it and take it back in place
+     */
+    @Benchmark
+    public void makeUnmakeInPlace(Blackhole bh) {
+        for (int c = 0; c < board.getNumCars(); c++) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                if (board.canMove(c, dir)) {
+                    board.makeMove(c, dir);
+                    bh.consume(board.getState());
+                    board.unmakeMove(c, dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * packed state of each successor w/o making the move
+     */
+    @Benchmark
+    public void packedStateAfterMove(Blackhole bh) {
+        for (int c = 0; c < board.getNumCars(); c++) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                if (board.canMove(c, dir))
+                    bh.consume(board.getStateAfterMove(c, dir));
+            }
+        }
+    }
+
+    /**
+     * zobrist key of each successor, updated from the parent's key
+     */
+    @Benchmark
+    public void zobristIncremental(Blackhole bh) {
+        for (int c = 0; c < board.getNumCars(); c++) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                if (board.canMove(c, dir))
+                    bh.consume(board.getZobristKeyAfterMove(c, dir));
+            }
+        }
+    }
+
+    /**
+     * zobrist key of each successor, hashed from scratch
+     */
+    @Benchmark
+    public void zobristFull(Blackhole bh) {
+        for (int c = 0; c < positions.length; c++) {
+            for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                if (board.canMove(c, dir)) {
+                    positions[c] += dir;
+                    bh.consume(board.getLayout().zobrist(positions));
+                    positions[c] -= dir;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package rushhour.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+
+import rushhour.Board;
+import rushhour.LongHashSet;
+
+/**
+ * puzzle corpus shipped w/ the benchmarks, easiest first
+ * names end in the shortest solution length (single-square moves)
+ * left-20 is medium-20 mirrored, w/ the exit on the left
+ */
+final class Puzzles {
+    private Puzzles() {}
+
+    /**
+     * copy a corpus puzzle to a temp file, since Board reads from a path
+     * @param name: e.g. "d35-63"
+     * @return path of the copy, deleted on exit
+     */
+    static String extract(String name) {
+        try (InputStream in = Puzzles.class.getResourceAsStream("/puzzles/" + name + ".txt")) {
+            if (in == null)
+                throw new IllegalArgumentException("no such puzzle: " + name);
+            Path file = Files.createTempFile(name + "-", ".txt");
+            file.toFile().deleteOnExit();
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            return file.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * parse a corpus puzzle
+     */
+    static Board load(String name) {
+        return new Board(extract(name));
+    }
+
+    /**
+     * every packed state reachable from start, in BFS order
+     */
+    static long[] cluster(Board start) {
+        LongHashSet seen = new LongHashSet();
+        ArrayDeque<Board> queue = new ArrayDeque<Board>();
+        long[] states = new long[1024];
+        int size = 0;
+        queue.add(start);
+        seen.add(start.getState());
+
+        while (!queue.isEmpty()) {
+            Board current = queue.poll();
+            if (size == states.length)
+                states = java.util.Arrays.copyOf(states, size * 2);
+            states[size++] = current.getState();
+            for (int c = 0; c < current.getNumCars(); c++) {
+                for (int dir = Board.BACKWARD; dir <= Board.FORWARD; dir += 2) {
+                    if (current.canMove(c, dir) && seen.add(current.getStateAfterMove(c, dir)))
+                        queue.add(new Board(current).attemptMove(c, dir));
+                }
+            }
+        }
+        return java.util.Arrays.copyOf(states, size);
+    }
+}
@@ -0,0 +1,106 @@
+package rushhour.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.AStarStrategy;
+import rushhour.BfsStrategy;
+import rushhour.BlockerChainHeuristic;
+import rushhour.BlockerHeuristic;
+import rushhour.Board;
+import rushhour.MoveMetric;
+import rushhour.ParallelBfsStrategy;
+import rushhour.SearchResult;
+import rushhour.Solver;
+
+/**
+ * time to solve each corpus puzzle
+ * strategies search an already-parsed board; solveFromFile also covers
+ * parsing and writing the move list (its console output is discarded)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    @Param({"easy-06", "medium-20", "left-20", "c25-52", "d35-63", "hard-67"})
+    public String puzzle;
+
+    private String input;
+    private String output;
+    private Board start;
+    private PrintStream console;
+
+    @Setup
+    public void setup() throws IOException {
+        input = Puzzles.extract(puzzle);
+        output = Files.createTempFile(puzzle + "-", ".out").toString();
+        start = new Board(input);
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+        try {
+            Files.deleteIfExists(java.nio.file.Path.of(output));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public void solveFromFile() {
+        Solver.solveFromFile(input, output);
+    }
+
+    @Benchmark
+    public SearchResult bfs() {
+        return new BfsStrategy().search(start);
+    }
+
+    @Benchmark
+    public SearchResult parallelBfs() {
+        return new ParallelBfsStrategy().search(start);
+    }
+
+    @Benchmark
+    public SearchResult astarBlockers() {
+        return new AStarStrategy(new BlockerHeuristic()).search(start);
+    }
+
+    @Benchmark
+    public SearchResult astarBlockerChain() {
+        return new AStarStrategy(new BlockerChainHeuristic()).search(start);
+    }
+
+    @Benchmark
+    public SearchResult bfsSlide() {
+        return new BfsStrategy(MoveMetric.SLIDE).search(start);
+    }
+
+    @Benchmark
+    public SearchResult astarBlockerChainSlide() {
+        return new AStarStrategy(new BlockerChainHeuristic(MoveMetric.SLIDE)).search(start);
+    }
+}
@@ -0,0 +1,67 @@
+package rushhour.bench;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.LongHashSet;
+
+/**
+ * inserting every state of a puzzle's cluster into a fresh visited set
+ * one op = one full cluster (656 to 9374 states across the corpus)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitedSetBenchmark {
+    @Param({"easy-06", "c25-52", "d35-63"})
+    public String puzzle;
+
+    private long[] states;
+
+    @Setup
+    public void setup() {
+        states = Puzzles.cluster(Puzzles.load(puzzle));
+    }
+
+    @Benchmark
+    public LongHashSet longHashSetGrowing() {
+        LongHashSet set = new LongHashSet();
+        for (long s : states)
+            set.add(s);
+        return set;
+    }
+
+    @Benchmark
+    public LongHashSet longHashSetPresized() {
+        LongHashSet set = new LongHashSet(states.length);
+        for (long s : states)
+            set.add(s);
+        return set;
+    }
+
+    /**
+     * boxed set, for comparison w/ the old HashSet visited set
+     */
+    @Benchmark
+    public HashSet<Long> boxedHashSet() {
+        HashSet<Long> set = new HashSet<Long>();
+        for (long s : states)
+            set.add(s);
+        return set;
+    }
+}
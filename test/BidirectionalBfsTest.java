@@ -0,0 +1,77 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * bidirectional BFS finds solutions as short as BFS, proves the same
+ * boards unsolvable and keeps to its budget while listing goal states
+ */
+public class BidirectionalBfsTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+    private static final String[] PUZZLES = { "easy-06", "medium-20", "left-20", "c25-52", "d35-63", "hard-67" };
+
+    // 7x8 board that Relevance can't rule out, w/ 4504 reachable boards and none solved
+    static final String UNSOLVABLE_7X8 = ".OPPQSSN\n.OB.QHHN\nTTBEFFM#\nJJ.EC.M.\n..RRCAAK\nGGXXC.LK\n.IIDD.L.\n";
+    // car right of X in its row, which Relevance proves unsolvable w/o a search
+    static final String TRIVIALLY_UNSOLVABLE = "......\n......\n..XXAA\n......\n......\n......\n";
+    // sparse 8x8 board w/ millions of goal placements
+    static final String SPARSE_8X8 = "AA......\nJJ......\n..CDEFGH\nXXCDEFGH\nKK......\n.....BB.\nLL......\nII......\n";
+
+    private static Board load(String puzzle) throws IOException {
+        return Board.parse(Files.readString(CORPUS.resolve(puzzle + ".txt")));
+    }
+
+    @Test
+    public void matchesBfsOnCorpus() throws IOException {
+        for (String puzzle : PUZZLES) {
+            Board start = load(puzzle);
+            for (MoveMetric metric : MoveMetric.values()) {
+                SearchResult bfs = new BfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                SearchResult bidirectional = new BidirectionalBfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                assertEquals(bfs.getMoveCount(), bidirectional.getMoveCount(), puzzle + " in " + metric);
+
+                Board end = new Board(start);
+                for (int move : bidirectional.getMoves())
+                    end.makeMove(Move.getCar(move), Move.getDir(move), Move.getDistance(move));
+                assertTrue(end.isSolved(), puzzle + " in " + metric + " does not end solved");
+            }
+        }
+    }
+
+    @Test
+    public void provesSameBoardsUnsolvable() {
+        for (String text : new String[] { UNSOLVABLE_7X8, TRIVIALLY_UNSOLVABLE }) {
+            Board start = Board.parse(text);
+            for (MoveMetric metric : MoveMetric.values()) {
+                SearchResult bfs = new BfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                SearchResult bidirectional = new BidirectionalBfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                assertEquals(SearchStatus.UNSOLVABLE, bfs.getStatus());
+                assertEquals(SearchStatus.UNSOLVABLE, bidirectional.getStatus());
+                assertFalse(bidirectional.isSolved());
+            }
+        }
+    }
+
+    @Test
+    public void goalListingStopsAtMemoryLimit() {
+        SearchResult result = new BidirectionalBfsStrategy()
+                .search(Board.parse(SPARSE_8X8), new SearchBudget(0, 0, 1L << 20));
+        assertEquals(SearchStatus.MEMORY_LIMIT, result.getStatus());
+        assertEquals(0, result.getNodesExpanded(), "stopped while listing goals");
+    }
+
+    @Test
+    public void goalListingStopsAtTimeLimit() {
+        SearchResult result = new BidirectionalBfsStrategy()
+                .search(Board.parse(SPARSE_8X8), new SearchBudget(50, 0, 0));
+        assertEquals(SearchStatus.TIME_LIMIT, result.getStatus());
+    }
+}
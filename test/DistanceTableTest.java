@@ -0,0 +1,85 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * tables written by save() and read back by load() answer the same as
+ * the table that was built
+ */
+public class DistanceTableTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+
+    @TempDir
+    Path temp;
+
+    private DistanceTable roundTrip(DistanceTable table) throws IOException {
+        String file = temp.resolve("table.bin").toString();
+        table.save(file);
+        return DistanceTable.load(file);
+    }
+
+    /**
+     * every rank holds the same state and distance, and every solvable
+     * state is solved in that many moves
+     */
+    private static void assertSameTable(DistanceTable built, DistanceTable loaded) {
+        assertEquals(built.size(), loaded.size());
+        assertEquals(built.getMaxDistance(), loaded.getMaxDistance());
+        CarLayout ours = built.getLayout();
+        CarLayout theirs = loaded.getLayout();
+        for (int i = 0; i < ours.getNumCars(); i++)
+            assertEquals(ours.getName(i), theirs.getName(i), "car " + i);
+        assertEquals(built.getSeed().getState(), loaded.getSeed().getState());
+
+        Board board = loaded.getSeed();
+        for (int rank = 0; rank < built.size(); rank++) {
+            assertEquals(built.getState(rank), loaded.getState(rank));
+            int distance = loaded.getDistanceByRank(rank);
+            assertEquals(built.getDistanceByRank(rank), distance);
+            board.loadState(loaded.getState(rank));
+            int[] moves = loaded.solve(board);
+            if (distance == DistanceTable.UNSOLVABLE)
+                continue;
+            assertNotNull(moves);
+            assertEquals(distance, moves.length);
+            Board end = new Board(board);
+            for (int move : moves)
+                end.makeMove(Move.getCar(move), Move.getDir(move), Move.getDistance(move));
+            assertTrue(end.isSolved());
+        }
+    }
+
+    @Test
+    public void seedWhoseCarsMovedKeepsItsCarOrder() throws IOException {
+        Board start = Board.parse("A.....\nA.....\nXX....\n......\n...BB.\n......\n");
+        // after these moves a grid scan would find X before A
+        Board seed = new Board(start);
+        seed.makeMove(1, Board.FORWARD, 2);
+        seed.makeMove(0, Board.FORWARD, 3);
+        for (MoveMetric metric : MoveMetric.values()) {
+            DistanceTable built = DistanceTable.build(seed, metric);
+            DistanceTable loaded = roundTrip(built);
+            assertSameTable(built, loaded);
+            assertArrayEquals(built.solve(start), loaded.solve(start));
+        }
+    }
+
+    @Test
+    public void corpusTablesSurviveSaveAndLoad() throws IOException {
+        for (String puzzle : new String[] { "medium-20", "left-20", "hard-67" }) {
+            Board start = Board.parse(Files.readString(CORPUS.resolve(puzzle + ".txt")));
+            DistanceTable built = DistanceTable.build(start, MoveMetric.STEP);
+            assertSameTable(built, roundTrip(built));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A* only returns shortest solutions if its heuristics never overestimate,
+ * so every state of a few corpus clusters is checked against its exact
+ * distance from a retrograde BFS (DistanceTable), in both move metrics
+ */
+public class HeuristicTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+    private static final String[] PUZZLES = { "easy-06.txt", "medium-20.txt", "hard-67.txt", "c25-52.txt" };
+
+    private static Board load(String puzzle) throws IOException {
+        return Board.parse(Files.readString(CORPUS.resolve(puzzle)));
+    }
+
+    private static Heuristic[] heuristics(MoveMetric metric) {
+        return new Heuristic[] { new BlockerHeuristic(metric), new BlockerChainHeuristic(metric) };
+    }
+
+    private static String render(Board board) {
+        StringBuilder text = new StringBuilder();
+        for (char[] row : board.getCharBoard())
+            text.append(row).append('\n');
+        return text.toString();
+    }
+
+    @Test
+    public void heuristicsNeverOverestimate() throws IOException {
+        for (String puzzle : PUZZLES) {
+            for (MoveMetric metric : MoveMetric.values()) {
+                DistanceTable table = DistanceTable.build(load(puzzle), metric);
+                Board board = table.getSeed();
+                Heuristic[] heuristics = heuristics(metric);
+                int checked = 0;
+                for (int rank = 0; rank < table.size(); rank++) {
+                    int distance = table.getDistanceByRank(rank);
+                    if (distance == DistanceTable.UNSOLVABLE)
+                        continue;
+                    board.loadState(table.getState(rank));
+                    for (Heuristic heuristic : heuristics) {
+                        int estimate = heuristic.estimate(board);
+                        if (estimate > distance)
+                            throw new AssertionError(heuristic.getName() + " estimates " + estimate + " for a board "
+                                    + distance + " moves from the goal in " + puzzle + ":\n" + render(board));
+                    }
+                    checked++;
+                }
+                assertTrue(checked > 0, "no solvable state in " + puzzle);
+            }
+        }
+    }
+
+    @Test
+    public void heuristicsAreZeroWhenSolved() throws IOException {
+        for (MoveMetric metric : MoveMetric.values()) {
+            DistanceTable table = DistanceTable.build(load("medium-20.txt"), metric);
+            Board board = table.getSeed();
+            for (int rank = 0; rank < table.size(); rank++) {
+                if (table.getDistanceByRank(rank) != 0)
+                    continue;
+                board.loadState(table.getState(rank));
+                for (Heuristic heuristic : heuristics(metric))
+                    assertEquals(0, heuristic.estimate(board), heuristic.getName() + " on a solved board");
+            }
+        }
+    }
+
+    @Test
+    public void aStarMatchesBfsMoveCounts() throws IOException {
+        String[] puzzles = { "easy-06.txt", "medium-20.txt", "hard-67.txt", "d35-63.txt", "c25-52.txt" };
+        for (String puzzle : puzzles) {
+            Board start = load(puzzle);
+            for (MoveMetric metric : MoveMetric.values()) {
+                SearchResult bfs = new BfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                assertTrue(bfs.isSolved(), "bfs did not solve " + puzzle);
+                for (Heuristic heuristic : heuristics(metric)) {
+                    SearchResult astar = new AStarStrategy(heuristic).search(start, SearchBudget.UNLIMITED);
+                    assertEquals(bfs.getMoveCount(), astar.getMoveCount(),
+                            "astar-" + heuristic.getName() + " on " + puzzle + " in " + metric);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * IDA* finds solutions as short as BFS, proves unsolvable boards w/ a
+ * table that holds their whole cluster, and never claims a proof it
+ * doesn't have when the table is too small or the depth is capped
+ */
+public class IdaStarTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+    private static final String[] PUZZLES = { "easy-06", "medium-20", "left-20", "c25-52", "d35-63", "hard-67" };
+
+    private static Board load(String puzzle) throws IOException {
+        return Board.parse(Files.readString(CORPUS.resolve(puzzle + ".txt")));
+    }
+
+    @Test
+    public void matchesBfsOnCorpus() throws IOException {
+        for (String puzzle : PUZZLES) {
+            Board start = load(puzzle);
+            for (MoveMetric metric : MoveMetric.values()) {
+                SearchResult bfs = new BfsStrategy(metric).search(start, SearchBudget.UNLIMITED);
+                SearchResult ida = new IdaStarStrategy(new BlockerChainHeuristic(metric))
+                        .search(start, SearchBudget.UNLIMITED);
+                assertEquals(SearchStatus.SOLVED, ida.getStatus(), puzzle + " in " + metric);
+                assertEquals(bfs.getMoveCount(), ida.getMoveCount(), puzzle + " in " + metric);
+            }
+        }
+    }
+
+    @Test
+    public void provesUnsolvableWithSmallTable() {
+        Board start = Board.parse(BidirectionalBfsTest.UNSOLVABLE_7X8);
+        assertFalse(Relevance.analyze(start).isTriviallyUnsolvable());
+        // 768 KB, 65536 slots for the 4504 boards of the cluster; w/ fewer, some bucket of
+        // WAYS slots is likely to get more boards than it holds, and an eviction rules out the proof
+        SearchResult result = new IdaStarStrategy(new BlockerChainHeuristic(), 65536 * IdaStarStrategy.ENTRY_BYTES)
+                .search(start, new SearchBudget(0, 5_000_000, 0));
+        assertEquals(SearchStatus.UNSOLVABLE, result.getStatus());
+    }
+
+    @Test
+    public void tooSmallTableRunsIntoBudget() {
+        // 16 slots can't hold the cluster, so every iteration evicts and none can prove anything
+        Board start = Board.parse(BidirectionalBfsTest.UNSOLVABLE_7X8);
+        SearchResult result = new IdaStarStrategy(new BlockerChainHeuristic(), 16 * IdaStarStrategy.ENTRY_BYTES)
+                .search(start, new SearchBudget(0, 200_000, 0));
+        assertEquals(SearchStatus.NODE_LIMIT, result.getStatus());
+    }
+
+    @Test
+    public void tooSmallTableStopsAtDepthLimit() {
+        Board start = Board.parse(BidirectionalBfsTest.UNSOLVABLE_7X8);
+        SearchResult result = new IdaStarStrategy(new BlockerChainHeuristic(), 16 * IdaStarStrategy.ENTRY_BYTES, 12)
+                .search(start, SearchBudget.UNLIMITED);
+        assertEquals(SearchStatus.DEPTH_LIMIT, result.getStatus());
+    }
+
+    @Test
+    public void depthLimitIsNotUnsolvable() throws IOException {
+        Board start = load("easy-06");
+        SearchResult capped = new IdaStarStrategy(new BlockerChainHeuristic(), IdaStarStrategy.DEFAULT_TABLE_BYTES, 5)
+                .search(start, SearchBudget.UNLIMITED);
+        assertEquals(SearchStatus.DEPTH_LIMIT, capped.getStatus());
+        SearchResult fits = new IdaStarStrategy(new BlockerChainHeuristic(), IdaStarStrategy.DEFAULT_TABLE_BYTES, 6)
+                .search(start, SearchBudget.UNLIMITED);
+        assertEquals(6, fits.getMoveCount());
+    }
+}
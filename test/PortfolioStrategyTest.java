@@ -0,0 +1,135 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * the first member to prove a result wins and stops the others, a member
+ * that throws only drops out, and members must agree on the MoveMetric
+ */
+public class PortfolioStrategyTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+    private static final String[] PUZZLES = { "easy-06", "medium-20", "left-20", "c25-52", "d35-63", "hard-67" };
+
+    private static Board load(String puzzle) throws IOException {
+        return Board.parse(Files.readString(CORPUS.resolve(puzzle + ".txt")));
+    }
+
+    /**
+     * never finds anything, only waits for the budget to stop it
+     */
+    private static class Waiter implements SearchStrategy {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        volatile SearchStatus status;
+
+        @Override
+        public SearchResult search(Board start, SearchBudget budget) {
+            SearchStats stats = new SearchStats();
+            stats.start();
+            SearchStatus over;
+            while ((over = budget.check(stats, 0)) == null)
+                Thread.onSpinWait();
+            status = over;
+            stopped.countDown();
+            return SearchResult.overBudget(stats, getName(), over);
+        }
+
+        @Override
+        public MoveMetric getMetric() { return MoveMetric.STEP; }
+
+        @Override
+        public String getName() { return "waiter"; }
+    }
+
+    /**
+     * fails every search
+     */
+    private static class Thrower implements SearchStrategy {
+        @Override
+        public SearchResult search(Board start, SearchBudget budget) {
+            throw new IllegalStateException("thrower failed");
+        }
+
+        @Override
+        public MoveMetric getMetric() { return MoveMetric.STEP; }
+
+        @Override
+        public String getName() { return "thrower"; }
+    }
+
+    @Test
+    public void winnerMatchesBfsOnCorpus() throws IOException {
+        PortfolioStrategy portfolio = new PortfolioStrategy(new BfsStrategy(),
+                new AStarStrategy(new BlockerChainHeuristic()), new BidirectionalBfsStrategy());
+        for (String puzzle : PUZZLES) {
+            Board start = load(puzzle);
+            SearchResult bfs = new BfsStrategy().search(start, SearchBudget.UNLIMITED);
+            SearchResult result = portfolio.search(start, SearchBudget.UNLIMITED);
+            assertTrue(result.isSolved(), puzzle);
+            assertEquals(bfs.getMoveCount(), result.getMoveCount(), puzzle);
+        }
+        long wins = 0;
+        for (int i = 0; i < portfolio.getNumStrategies(); i++)
+            wins += portfolio.getWins(i);
+        assertEquals(PUZZLES.length, wins, "one win per puzzle");
+    }
+
+    @Test
+    public void losersAreCancelled() throws IOException, InterruptedException {
+        Waiter waiter = new Waiter();
+        PortfolioStrategy portfolio = new PortfolioStrategy(waiter, new BfsStrategy());
+        // the time limit only keeps a broken cancel from spinning forever
+        SearchResult result = portfolio.search(load("medium-20"), new SearchBudget(10_000, 0, 0));
+        assertTrue(result.isSolved());
+        assertEquals("bfs", result.getStrategyName());
+        assertEquals(0, portfolio.getWins(0));
+        assertEquals(1, portfolio.getWins(1));
+        assertTrue(waiter.stopped.await(5, TimeUnit.SECONDS), "loser still searching");
+        assertEquals(SearchStatus.CANCELLED, waiter.status);
+    }
+
+    @Test
+    public void memberThatThrowsDropsOut() throws IOException {
+        PortfolioStrategy portfolio = new PortfolioStrategy(new Thrower(), new BfsStrategy());
+        SearchResult result = portfolio.search(load("easy-06"), SearchBudget.UNLIMITED);
+        assertTrue(result.isSolved());
+        assertEquals(6, result.getMoveCount());
+        assertEquals(1, portfolio.getWins(1));
+
+        PortfolioStrategy failing = new PortfolioStrategy(new Thrower(), new Thrower());
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> failing.search(load("easy-06"), SearchBudget.UNLIMITED));
+        assertEquals("thrower failed", e.getMessage());
+    }
+
+    @Test
+    public void noWinnerGivesFirstResultOverBudget() throws IOException {
+        PortfolioStrategy portfolio = new PortfolioStrategy(new Thrower(), new BfsStrategy(),
+                new BidirectionalBfsStrategy());
+        SearchResult result = portfolio.search(load("hard-67"), new SearchBudget(0, 10, 0));
+        assertEquals(SearchStatus.NODE_LIMIT, result.getStatus());
+        for (int i = 0; i < portfolio.getNumStrategies(); i++)
+            assertEquals(0, portfolio.getWins(i));
+    }
+
+    @Test
+    public void mixedMetricsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PortfolioStrategy(new BfsStrategy(MoveMetric.STEP), new BfsStrategy(MoveMetric.SLIDE)));
+        assertThrows(IllegalArgumentException.class, () -> new PortfolioStrategy(new BfsStrategy(),
+                new AStarStrategy(new BlockerChainHeuristic(MoveMetric.SLIDE))));
+        PortfolioStrategy slide = new PortfolioStrategy(new BfsStrategy(MoveMetric.SLIDE),
+                new IdaStarStrategy(new BlockerChainHeuristic(MoveMetric.SLIDE)));
+        assertSame(MoveMetric.SLIDE, slide.getMetric());
+    }
+}
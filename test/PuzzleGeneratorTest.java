@@ -0,0 +1,78 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * a run cut off in the middle of a shard picks up where it stopped:
+ * finished shards are kept, the torn one is mined again, and the file
+ * ends up w/ the same lines as a run that was never cut off
+ */
+public class PuzzleGeneratorTest {
+    private static final int CARS = 4;
+
+    @TempDir
+    Path temp;
+
+    private static PuzzleGenerator generator() {
+        return new PuzzleGenerator(MoveMetric.STEP, CARS, 1);
+    }
+
+    private static List<String> sortedLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<String>(Files.readAllLines(file, StandardCharsets.US_ASCII));
+        Collections.sort(lines);
+        return lines;
+    }
+
+    @Test
+    public void rerunAfterTornShardGivesSameLines() throws IOException, InterruptedException {
+        Path whole = temp.resolve("whole.txt");
+        assertEquals(PuzzleGenerator.getShardCount(), generator().run(whole.toString(), 2));
+        byte[] bytes = Files.readAllBytes(whole);
+
+        // keep 10 finished shards and the first half of the 11th, which may end mid-line
+        int kept = 10;
+        int shards = 0;
+        int end = 0;        // just past the 10th shard line
+        int next = 0;       // just past the 11th
+        for (int at = 0; at < bytes.length && next == 0; at++) {
+            if (bytes[at] != '\n' || at + 1 >= bytes.length || bytes[at + 1] != '#')
+                continue;
+            int lineEnd = at + 1;
+            while (bytes[lineEnd++] != '\n')
+                ;
+            if (++shards == kept)
+                end = lineEnd;
+            else if (shards == kept + 1)
+                next = lineEnd;
+        }
+        assertTrue(next > end && end > 0, "whole run has fewer than " + (kept + 1) + " shards");
+        int cut = end + (next - end) / 2;
+        Path torn = temp.resolve("torn.txt");
+        Files.write(torn, Arrays.copyOf(bytes, cut));
+
+        int mined = generator().run(torn.toString(), 2);
+        assertEquals(PuzzleGenerator.getShardCount() - kept, mined, "finished shards mined again");
+        assertEquals(sortedLines(whole), sortedLines(torn));
+
+        // nothing left to do, and nothing changes
+        assertEquals(0, generator().run(torn.toString(), 2));
+        assertEquals(sortedLines(whole), sortedLines(torn));
+        try (DirectoryStream<Path> left = Files.newDirectoryStream(temp, "*.tmp")) {
+            assertTrue(!left.iterator().hasNext(), "temp shard files left behind");
+        }
+    }
+}
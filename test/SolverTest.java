@@ -0,0 +1,71 @@
+package rushhour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * the default solver and the search strategies on every corpus puzzle,
+ * including left-20, which is medium-20 mirrored w/ the exit on the left
+ */
+public class SolverTest {
+    private static final Path CORPUS = Path.of("benchmarks", "src", "main", "resources", "puzzles");
+    private static final String[] PUZZLES = { "easy-06", "medium-20", "left-20", "c25-52", "d35-63", "hard-67" };
+
+    @TempDir
+    Path temp;
+
+    private static Board load(String puzzle) throws IOException {
+        return Board.parse(Files.readString(CORPUS.resolve(puzzle + ".txt")));
+    }
+
+    /**
+     * check that moves take start to a solved board
+     */
+    private static void assertSolves(Board start, int[] moves, String what) {
+        Board board = new Board(start);
+        for (int move : moves)
+            board.makeMove(Move.getCar(move), Move.getDir(move), Move.getDistance(move));
+        assertTrue(board.isSolved(), what + " does not end solved");
+    }
+
+    @Test
+    public void defaultSolverSolvesCorpus() throws IOException {
+        for (String puzzle : PUZZLES) {
+            String input = CORPUS.resolve(puzzle + ".txt").toString();
+            String output = temp.resolve(puzzle + ".out").toString();
+            SearchResult result = Solver.solveFromFile(input, output);
+            assertTrue(result.isSolved(), "default solver did not solve " + puzzle);
+            assertSolves(load(puzzle), result.getMoves(), "default solution of " + puzzle);
+            assertEquals(result.getMoveCount(), Files.readAllLines(Path.of(output)).size(),
+                    "moves written for " + puzzle);
+        }
+    }
+
+    @Test
+    public void exitSideDoesNotChangeSolutionLength() throws IOException {
+        Board right = load("medium-20");
+        Board left = load("left-20");
+        assertEquals(Board.BACKWARD, left.getLayout().getGeometry().getExitDir());
+        for (MoveMetric metric : MoveMetric.values()) {
+            SearchStrategy[] strategies = {
+                new BfsStrategy(metric),
+                new AStarStrategy(new BlockerChainHeuristic(metric)),
+                new BidirectionalBfsStrategy(metric),
+                new IdaStarStrategy(new BlockerChainHeuristic(metric)),
+            };
+            for (SearchStrategy strategy : strategies) {
+                SearchResult expected = strategy.search(right, SearchBudget.UNLIMITED);
+                SearchResult mirrored = strategy.search(left, SearchBudget.UNLIMITED);
+                assertEquals(expected.getMoveCount(), mirrored.getMoveCount(), strategy.getName() + " on left-20");
+                assertSolves(left, mirrored.getMoves(), strategy.getName() + " solution of left-20");
+            }
+        }
+    }
+}